@@ -1,9 +1,12 @@
 package com.pablogb.multimediasorterapp;
 
+import com.pablogb.multimediasorterapp.controller.MultimediaSorterController;
+import com.pablogb.multimediasorterapp.controller.PreviewPriorityInterceptor;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @SpringBootApplication
@@ -21,8 +24,20 @@ public class MultimediaSorterApplication {
 			public void addCorsMappings(CorsRegistry registry) {
 				registry.addMapping("/**")
 						.allowedOrigins("http://localhost:3000", "http://localhost:5173")
-						.allowedMethods("GET", "POST", "PUT", "DELETE")
-						.allowedHeaders("*");
+						.allowedMethods("GET", "HEAD", "POST", "PUT", "DELETE")
+						.allowedHeaders("*")
+						.exposedHeaders(MultimediaSorterController.PREVIEW_RENDITION_HEADER);
+			}
+		};
+	}
+
+	@Bean
+	public WebMvcConfigurer previewPriorityConfigurer(PreviewPriorityInterceptor previewPriorityInterceptor) {
+		return new WebMvcConfigurer() {
+			@Override
+			public void addInterceptors(InterceptorRegistry registry) {
+				// Lets sorts yield to previews and back off when they get slow
+				registry.addInterceptor(previewPriorityInterceptor).addPathPatterns(PreviewPriorityInterceptor.PATHS);
 			}
 		};
 	}
@@ -1,13 +1,21 @@
 package com.pablogb.multimediasorterapp.controller;
 
 import com.pablogb.multimediasorterapp.model.*;
+import com.pablogb.multimediasorterapp.service.ClassificationRuleService;
+import com.pablogb.multimediasorterapp.service.IoThrottle;
+import com.pablogb.multimediasorterapp.service.FolderTreeService;
 import com.pablogb.multimediasorterapp.service.MultimediaSorterService;
+import com.pablogb.multimediasorterapp.service.PreviewRenditionService;
+import com.pablogb.multimediasorterapp.service.SortJobService;
+import com.pablogb.multimediasorterapp.service.SortPlanService;
+import com.pablogb.multimediasorterapp.service.VideoPreviewService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -21,9 +29,32 @@ import java.util.Map;
 @RequestMapping("/api")
 public class MultimediaSorterController {
 
+    public static final String PREVIEW_RENDITION_HEADER = "X-Preview-Rendition";
+
     @Autowired
     private MultimediaSorterService service;
 
+    @Autowired
+    private SortJobService sortJobService;
+
+    @Autowired
+    private SortPlanService sortPlanService;
+
+    @Autowired
+    private IoThrottle ioThrottle;
+
+    @Autowired
+    private VideoPreviewService videoPreviewService;
+
+    @Autowired
+    private PreviewRenditionService previewRenditionService;
+
+    @Autowired
+    private ClassificationRuleService classificationRuleService;
+
+    @Autowired
+    private FolderTreeService folderTreeService;
+
     @GetMapping("/images")
     public ResponseEntity<List<MultimediaInfo>> getImages(@RequestParam String sourcePath) {
         try {
@@ -35,23 +66,70 @@ public class MultimediaSorterController {
     }
 
     @GetMapping("/media")
-    public ResponseEntity<Resource> getMedia(@RequestParam String path) {
+    public ResponseEntity<Resource> getMedia(@RequestParam String path,
+                                             @RequestParam(defaultValue = "false") boolean rendition) {
         try {
             Path imagePath = Paths.get(path);
             if (!Files.exists(imagePath)) {
                 return ResponseEntity.notFound().build();
             }
 
-            Resource resource = new FileSystemResource(imagePath);
-            String contentType = Files.probeContentType(imagePath);
+            // Serve a lighter rendition of heavy formats once one has been generated
+            Path renditionPath = previewRenditionService.getRendition(imagePath);
+            Path served;
+            String renditionState;
+            if (rendition) {
+                if (renditionPath == null) {
+                    return ResponseEntity.notFound().build();
+                }
+                served = renditionPath;
+                renditionState = "served";
+            } else if (service.isVideoFile(imagePath)) {
+                // Videos are played through range requests, swapping the bytes mid-playback would break them.
+                // The client switches to the rendition URL itself once it's announced as available.
+                served = imagePath;
+                renditionState = renditionPath != null ? "available" : "none";
+            } else {
+                served = renditionPath != null ? renditionPath : imagePath;
+                renditionState = renditionPath != null ? "served" : "none";
+            }
+
+            Resource resource = new FileSystemResource(served);
+            String contentType = Files.probeContentType(served);
             return ResponseEntity.ok()
                     .contentType(MediaType.parseMediaType(contentType != null ? contentType : "image/jpeg"))
+                    .header(PREVIEW_RENDITION_HEADER, renditionState)
                     .body(resource);
         } catch (IOException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    @GetMapping("/video-poster")
+    public ResponseEntity<Resource> getVideoPoster(@RequestParam String path) {
+        try {
+            Path poster = videoPreviewService.getPoster(path);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.IMAGE_JPEG)
+                    .body(new FileSystemResource(poster));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/video-strip")
+    public ResponseEntity<Resource> getVideoStrip(@RequestParam String path,
+                                                  @RequestParam(defaultValue = "10") int frames) {
+        try {
+            Path strip = videoPreviewService.getStrip(path, frames);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.IMAGE_JPEG)
+                    .body(new FileSystemResource(strip));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/media-metadata")
     public ResponseEntity<MultimediaMetadata> getMediaMetadata(@RequestParam String path) {
         try {
@@ -62,6 +140,15 @@ public class MultimediaSorterController {
         }
     }
 
+    @PostMapping("/auto-classify")
+    public ResponseEntity<AutoClassifyResult> autoClassify(@RequestBody AutoClassifyRequest request) {
+        try {
+            return ResponseEntity.ok(classificationRuleService.classify(request));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @PostMapping("/sort")
     public ResponseEntity<SortResult> sortMedia(@RequestBody SortRequest request) {
         try {
@@ -74,6 +161,78 @@ public class MultimediaSorterController {
         }
     }
 
+    @PostMapping("/sort/plan")
+    public ResponseEntity<SortPlan> planSort(@RequestBody SortRequest request) {
+        try {
+            return ResponseEntity.ok(sortPlanService.plan(request).getPlan());
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/sort/jobs")
+    public ResponseEntity<SortResult> createSortJob(@RequestBody SortRequest request) {
+        try {
+            return ResponseEntity.ok(sortJobService.createJob(request));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(
+                    new SortResult(false, e.getMessage(), 0, 0, 0)
+            );
+        }
+    }
+
+    @PostMapping("/sort/jobs/{jobId}/plan")
+    public ResponseEntity<SortPlan> planSortBatch(@PathVariable String jobId,
+                                                  @RequestBody Map<String, String> classifications) {
+        try {
+            return ResponseEntity.ok(sortJobService.planBatch(jobId, classifications));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/sort/jobs/{jobId}/batches")
+    public ResponseEntity<SortResult> sortBatch(@PathVariable String jobId,
+                                                @RequestBody Map<String, String> classifications) {
+        try {
+            return ResponseEntity.ok(sortJobService.processBatch(jobId, classifications));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(
+                    new SortResult(false, e.getMessage(), 0, 0, 0)
+            );
+        }
+    }
+
+    @GetMapping("/sort/jobs/{jobId}")
+    public ResponseEntity<SortResult> getSortJob(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(sortJobService.getStatus(jobId));
+        } catch (IOException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/sort/jobs/{jobId}/errors")
+    public ResponseEntity<SortErrorPage> getSortJobErrors(@PathVariable String jobId,
+                                                          @RequestParam(defaultValue = "0") int offset,
+                                                          @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(sortJobService.getErrors(jobId, offset, limit));
+        } catch (IOException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @DeleteMapping("/sort/jobs/{jobId}")
+    public ResponseEntity<Void> deleteSortJob(@PathVariable String jobId) {
+        try {
+            sortJobService.deleteJob(jobId);
+            return ResponseEntity.ok().build();
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/session")
     public ResponseEntity<SessionState> getSession(@RequestParam String sourcePath) {
         try {
@@ -107,13 +266,22 @@ public class MultimediaSorterController {
     @GetMapping("/folders")
     public ResponseEntity<List<String>> getFolders(@RequestParam String path) {
         try {
-            List<String> folders = service.listFolders(path);
+            List<String> folders = folderTreeService.listFolders(path);
             return ResponseEntity.ok(folders);
         } catch (IOException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    @GetMapping(value = "/folder-counts", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> getFolderCounts(@RequestParam String path) {
+        try {
+            return ResponseEntity.ok(folderTreeService.streamMediaCounts(path));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/validate-path")
     public ResponseEntity<PathValidation> validatePath(@RequestParam String path) {
         PathValidation validation = service.validatePath(path);
@@ -160,6 +328,16 @@ public class MultimediaSorterController {
         }
     }
 
+    @GetMapping("/io-throttle")
+    public ResponseEntity<IoThrottleSettings> getIoThrottle() {
+        return ResponseEntity.ok(ioThrottle.getSettings());
+    }
+
+    @PutMapping("/io-throttle")
+    public ResponseEntity<IoThrottleSettings> updateIoThrottle(@RequestBody IoThrottleSettings settings) {
+        return ResponseEntity.ok(ioThrottle.updateSettings(settings));
+    }
+
     @GetMapping("/open-file")
     public ResponseEntity<String> openFile(@RequestParam String path) {
         try {
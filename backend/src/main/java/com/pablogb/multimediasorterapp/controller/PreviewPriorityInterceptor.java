@@ -0,0 +1,80 @@
+package com.pablogb.multimediasorterapp.controller;
+
+import com.pablogb.multimediasorterapp.service.IoThrottle;
+import com.pablogb.multimediasorterapp.service.MultimediaSorterService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Tells the {@link IoThrottle} when previews are being served so sorts can
+ * yield to them. Posters and strips count as in flight, but only
+ * /api/media images feed the latency target: they're read straight off disk,
+ * while posters and strips mostly measure FFmpeg.
+ */
+@Component
+public class PreviewPriorityInterceptor implements HandlerInterceptor {
+
+    public static final String[] PATHS = {"/api/media", "/api/video-poster", "/api/video-strip"};
+
+    private static final String STARTED_ATTRIBUTE = PreviewPriorityInterceptor.class.getName() + ".started";
+
+    private final IoThrottle ioThrottle;
+    private final MultimediaSorterService sorterService;
+
+    public PreviewPriorityInterceptor(IoThrottle ioThrottle, MultimediaSorterService sorterService) {
+        this.ioThrottle = ioThrottle;
+        this.sorterService = sorterService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (isVideoStream(request)) {
+            return true;
+        }
+        request.setAttribute(STARTED_ATTRIBUTE, System.nanoTime());
+        ioThrottle.previewStarted();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Long started = (Long) request.getAttribute(STARTED_ATTRIBUTE);
+        if (started == null) {
+            return;
+        }
+        String contentType = response.getContentType();
+        Long latencyMillis = null;
+        if (isMediaRequest(request) && contentType != null && contentType.startsWith("image/")) {
+            latencyMillis = (System.nanoTime() - started) / 1_000_000;
+        }
+        ioThrottle.previewFinished(latencyMillis);
+    }
+
+    // A playing video is streamed in range requests for as long as it plays, sorts shouldn't wait on it
+    private boolean isVideoStream(HttpServletRequest request) {
+        if (request.getHeader(HttpHeaders.RANGE) != null) {
+            return true;
+        }
+        String path = request.getParameter("path");
+        if (path == null || !isMediaRequest(request)) {
+            return false;
+        }
+        try {
+            Path file = Paths.get(path);
+            return file.getFileName() != null && sorterService.isVideoFile(file);
+        } catch (InvalidPathException e) {
+            return false;
+        }
+    }
+
+    private boolean isMediaRequest(HttpServletRequest request) {
+        return request.getRequestURI().endsWith("/api/media");
+    }
+}
@@ -0,0 +1,20 @@
+package com.pablogb.multimediasorterapp.model;
+
+import java.util.List;
+
+public class AutoClassifyRequest {
+    private String sourcePath;
+    private List<Destination> destinations;
+    private List<ClassificationRule> rules; // evaluated in order, first match wins
+
+    public AutoClassifyRequest() {}
+
+    public String getSourcePath() { return sourcePath; }
+    public void setSourcePath(String sourcePath) { this.sourcePath = sourcePath; }
+
+    public List<Destination> getDestinations() { return destinations; }
+    public void setDestinations(List<Destination> destinations) { this.destinations = destinations; }
+
+    public List<ClassificationRule> getRules() { return rules; }
+    public void setRules(List<ClassificationRule> rules) { this.rules = rules; }
+}
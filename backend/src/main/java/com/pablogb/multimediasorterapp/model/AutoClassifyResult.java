@@ -0,0 +1,26 @@
+package com.pablogb.multimediasorterapp.model;
+
+import java.util.Map;
+
+public class AutoClassifyResult {
+    private Map<String, String> classifications; // imagePath -> destinationName
+    private int scanned;
+    private int matched;
+
+    public AutoClassifyResult() {}
+
+    public AutoClassifyResult(Map<String, String> classifications, int scanned, int matched) {
+        this.classifications = classifications;
+        this.scanned = scanned;
+        this.matched = matched;
+    }
+
+    public Map<String, String> getClassifications() { return classifications; }
+    public void setClassifications(Map<String, String> classifications) { this.classifications = classifications; }
+
+    public int getScanned() { return scanned; }
+    public void setScanned(int scanned) { this.scanned = scanned; }
+
+    public int getMatched() { return matched; }
+    public void setMatched(int matched) { this.matched = matched; }
+}
@@ -0,0 +1,66 @@
+package com.pablogb.multimediasorterapp.model;
+
+import java.util.List;
+
+/**
+ * A declarative auto-classification rule. Every condition that is set must
+ * match; conditions left null are ignored. The date taken comes from EXIF
+ * for images and from the header of MP4/MOV videos; files without one
+ * (including other video formats) use their modification time.
+ */
+public class ClassificationRule {
+    private String destination; // destination name the matching files go to
+    private String type; // "image" or "video"
+    private List<String> extensions; // e.g. [".jpg", ".heic"]
+    private String filenamePattern; // glob, e.g. "IMG_*"
+    private String cameraModel; // case-insensitive substring of the EXIF model
+    private String takenAfter; // yyyy-MM-dd, inclusive
+    private String takenBefore; // yyyy-MM-dd, exclusive
+    private Integer minWidth;
+    private Integer maxWidth;
+    private Integer minHeight;
+    private Integer maxHeight;
+    private Float minDuration; // in seconds
+    private Float maxDuration;
+
+    public ClassificationRule() {}
+
+    public String getDestination() { return destination; }
+    public void setDestination(String destination) { this.destination = destination; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public List<String> getExtensions() { return extensions; }
+    public void setExtensions(List<String> extensions) { this.extensions = extensions; }
+
+    public String getFilenamePattern() { return filenamePattern; }
+    public void setFilenamePattern(String filenamePattern) { this.filenamePattern = filenamePattern; }
+
+    public String getCameraModel() { return cameraModel; }
+    public void setCameraModel(String cameraModel) { this.cameraModel = cameraModel; }
+
+    public String getTakenAfter() { return takenAfter; }
+    public void setTakenAfter(String takenAfter) { this.takenAfter = takenAfter; }
+
+    public String getTakenBefore() { return takenBefore; }
+    public void setTakenBefore(String takenBefore) { this.takenBefore = takenBefore; }
+
+    public Integer getMinWidth() { return minWidth; }
+    public void setMinWidth(Integer minWidth) { this.minWidth = minWidth; }
+
+    public Integer getMaxWidth() { return maxWidth; }
+    public void setMaxWidth(Integer maxWidth) { this.maxWidth = maxWidth; }
+
+    public Integer getMinHeight() { return minHeight; }
+    public void setMinHeight(Integer minHeight) { this.minHeight = minHeight; }
+
+    public Integer getMaxHeight() { return maxHeight; }
+    public void setMaxHeight(Integer maxHeight) { this.maxHeight = maxHeight; }
+
+    public Float getMinDuration() { return minDuration; }
+    public void setMinDuration(Float minDuration) { this.minDuration = minDuration; }
+
+    public Float getMaxDuration() { return maxDuration; }
+    public void setMaxDuration(Float maxDuration) { this.maxDuration = maxDuration; }
+}
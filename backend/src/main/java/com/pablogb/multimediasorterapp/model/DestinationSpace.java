@@ -0,0 +1,29 @@
+package com.pablogb.multimediasorterapp.model;
+
+public class DestinationSpace {
+    private String fileStore;
+    private long requiredBytes;
+    private long usableBytes;
+    private boolean fits;
+
+    public DestinationSpace() {}
+
+    public DestinationSpace(String fileStore, long requiredBytes, long usableBytes) {
+        this.fileStore = fileStore;
+        this.requiredBytes = requiredBytes;
+        this.usableBytes = usableBytes;
+        this.fits = requiredBytes <= usableBytes;
+    }
+
+    public String getFileStore() { return fileStore; }
+    public void setFileStore(String fileStore) { this.fileStore = fileStore; }
+
+    public long getRequiredBytes() { return requiredBytes; }
+    public void setRequiredBytes(long requiredBytes) { this.requiredBytes = requiredBytes; }
+
+    public long getUsableBytes() { return usableBytes; }
+    public void setUsableBytes(long usableBytes) { this.usableBytes = usableBytes; }
+
+    public boolean isFits() { return fits; }
+    public void setFits(boolean fits) { this.fits = fits; }
+}
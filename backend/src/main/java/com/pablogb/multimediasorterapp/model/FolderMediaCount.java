@@ -0,0 +1,19 @@
+package com.pablogb.multimediasorterapp.model;
+
+public class FolderMediaCount {
+    private String path;
+    private int mediaCount;
+
+    public FolderMediaCount() {}
+
+    public FolderMediaCount(String path, int mediaCount) {
+        this.path = path;
+        this.mediaCount = mediaCount;
+    }
+
+    public String getPath() { return path; }
+    public void setPath(String path) { this.path = path; }
+
+    public int getMediaCount() { return mediaCount; }
+    public void setMediaCount(int mediaCount) { this.mediaCount = mediaCount; }
+}
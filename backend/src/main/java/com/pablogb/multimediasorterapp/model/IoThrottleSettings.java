@@ -0,0 +1,30 @@
+package com.pablogb.multimediasorterapp.model;
+
+public class IoThrottleSettings {
+    private long bytesPerSecond; // per device, 0 = unlimited
+    private int opsPerSecond; // per device, 0 = unlimited
+    private boolean yieldToPreviews;
+    private long targetPreviewLatencyMillis;
+    private double backoffFactor; // read-only, 1.0 = no backoff
+    private Double previewLatencyMillis; // read-only, smoothed
+
+    public IoThrottleSettings() {}
+
+    public long getBytesPerSecond() { return bytesPerSecond; }
+    public void setBytesPerSecond(long bytesPerSecond) { this.bytesPerSecond = bytesPerSecond; }
+
+    public int getOpsPerSecond() { return opsPerSecond; }
+    public void setOpsPerSecond(int opsPerSecond) { this.opsPerSecond = opsPerSecond; }
+
+    public boolean isYieldToPreviews() { return yieldToPreviews; }
+    public void setYieldToPreviews(boolean yieldToPreviews) { this.yieldToPreviews = yieldToPreviews; }
+
+    public long getTargetPreviewLatencyMillis() { return targetPreviewLatencyMillis; }
+    public void setTargetPreviewLatencyMillis(long targetPreviewLatencyMillis) { this.targetPreviewLatencyMillis = targetPreviewLatencyMillis; }
+
+    public double getBackoffFactor() { return backoffFactor; }
+    public void setBackoffFactor(double backoffFactor) { this.backoffFactor = backoffFactor; }
+
+    public Double getPreviewLatencyMillis() { return previewLatencyMillis; }
+    public void setPreviewLatencyMillis(Double previewLatencyMillis) { this.previewLatencyMillis = previewLatencyMillis; }
+}
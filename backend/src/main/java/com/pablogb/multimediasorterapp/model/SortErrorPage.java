@@ -0,0 +1,26 @@
+package com.pablogb.multimediasorterapp.model;
+
+import java.util.List;
+
+public class SortErrorPage {
+    private List<SortFileResult> errors;
+    private int offset;
+    private int total;
+
+    public SortErrorPage() {}
+
+    public SortErrorPage(List<SortFileResult> errors, int offset, int total) {
+        this.errors = errors;
+        this.offset = offset;
+        this.total = total;
+    }
+
+    public List<SortFileResult> getErrors() { return errors; }
+    public void setErrors(List<SortFileResult> errors) { this.errors = errors; }
+
+    public int getOffset() { return offset; }
+    public void setOffset(int offset) { this.offset = offset; }
+
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+}
@@ -0,0 +1,45 @@
+package com.pablogb.multimediasorterapp.model;
+
+public class SortFileResult {
+    public static final String COPIED = "copied";
+    public static final String SKIPPED = "skipped";
+    public static final String FAILED = "failed";
+
+    private String path;
+    private String status; // "copied", "skipped" or "failed"
+    private String destination; // final path, null when failed
+    private String error;
+
+    public SortFileResult() {}
+
+    public SortFileResult(String path, String status, String destination, String error) {
+        this.path = path;
+        this.status = status;
+        this.destination = destination;
+        this.error = error;
+    }
+
+    public static SortFileResult copied(String path, String destination) {
+        return new SortFileResult(path, COPIED, destination, null);
+    }
+
+    public static SortFileResult skipped(String path, String destination) {
+        return new SortFileResult(path, SKIPPED, destination, null);
+    }
+
+    public static SortFileResult failed(String path, String error) {
+        return new SortFileResult(path, FAILED, null, error);
+    }
+
+    public String getPath() { return path; }
+    public void setPath(String path) { this.path = path; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getDestination() { return destination; }
+    public void setDestination(String destination) { this.destination = destination; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,36 @@
+package com.pablogb.multimediasorterapp.model;
+
+import java.util.List;
+
+public class SortPlan {
+    private boolean feasible; // false when a destination device doesn't have enough room
+    private int fileCount;
+    private long totalBytes;
+    private Double estimatedSeconds;
+    private List<DestinationSpace> destinations;
+    private List<SortPlanGroup> groups; // in the order they will be processed
+    private List<String> problems; // missing sources, unknown destinations
+
+    public SortPlan() {}
+
+    public boolean isFeasible() { return feasible; }
+    public void setFeasible(boolean feasible) { this.feasible = feasible; }
+
+    public int getFileCount() { return fileCount; }
+    public void setFileCount(int fileCount) { this.fileCount = fileCount; }
+
+    public long getTotalBytes() { return totalBytes; }
+    public void setTotalBytes(long totalBytes) { this.totalBytes = totalBytes; }
+
+    public Double getEstimatedSeconds() { return estimatedSeconds; }
+    public void setEstimatedSeconds(Double estimatedSeconds) { this.estimatedSeconds = estimatedSeconds; }
+
+    public List<DestinationSpace> getDestinations() { return destinations; }
+    public void setDestinations(List<DestinationSpace> destinations) { this.destinations = destinations; }
+
+    public List<SortPlanGroup> getGroups() { return groups; }
+    public void setGroups(List<SortPlanGroup> groups) { this.groups = groups; }
+
+    public List<String> getProblems() { return problems; }
+    public void setProblems(List<String> problems) { this.problems = problems; }
+}
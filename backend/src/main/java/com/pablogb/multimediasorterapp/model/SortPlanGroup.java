@@ -0,0 +1,34 @@
+package com.pablogb.multimediasorterapp.model;
+
+public class SortPlanGroup {
+    private String sourceStore;
+    private String destinationStore;
+    private int fileCount;
+    private long bytes;
+    private Double estimatedSeconds; // null until a copy between these devices has been measured
+
+    public SortPlanGroup() {}
+
+    public SortPlanGroup(String sourceStore, String destinationStore, int fileCount, long bytes, Double estimatedSeconds) {
+        this.sourceStore = sourceStore;
+        this.destinationStore = destinationStore;
+        this.fileCount = fileCount;
+        this.bytes = bytes;
+        this.estimatedSeconds = estimatedSeconds;
+    }
+
+    public String getSourceStore() { return sourceStore; }
+    public void setSourceStore(String sourceStore) { this.sourceStore = sourceStore; }
+
+    public String getDestinationStore() { return destinationStore; }
+    public void setDestinationStore(String destinationStore) { this.destinationStore = destinationStore; }
+
+    public int getFileCount() { return fileCount; }
+    public void setFileCount(int fileCount) { this.fileCount = fileCount; }
+
+    public long getBytes() { return bytes; }
+    public void setBytes(long bytes) { this.bytes = bytes; }
+
+    public Double getEstimatedSeconds() { return estimatedSeconds; }
+    public void setEstimatedSeconds(Double estimatedSeconds) { this.estimatedSeconds = estimatedSeconds; }
+}
@@ -1,11 +1,15 @@
 package com.pablogb.multimediasorterapp.model;
 
+import java.util.List;
+
 public class SortResult {
+    private String jobId; // only set for batched sorts
     private boolean success;
     private String message;
     private int copied;
     private int skipped;
     private int failed;
+    private List<SortFileResult> results; // per-file outcome of the batch just processed
 
     public SortResult() {}
 
@@ -17,6 +21,9 @@ public class SortResult {
         this.failed = failed;
     }
 
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
     public boolean isSuccess() { return success; }
     public void setSuccess(boolean success) { this.success = success; }
 
@@ -31,4 +38,7 @@ public class SortResult {
 
     public int getFailed() { return failed; }
     public void setFailed(int failed) { this.failed = failed; }
+
+    public List<SortFileResult> getResults() { return results; }
+    public void setResults(List<SortFileResult> results) { this.results = results; }
 }
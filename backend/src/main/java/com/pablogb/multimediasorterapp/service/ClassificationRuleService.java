@@ -0,0 +1,322 @@
+package com.pablogb.multimediasorterapp.service;
+
+import com.drew.imaging.ImageMetadataReader;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.exif.ExifDirectoryBase;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.ExifSubIFDDirectory;
+import com.drew.metadata.mov.QuickTimeDirectory;
+import com.drew.metadata.mp4.Mp4Directory;
+import com.pablogb.multimediasorterapp.model.*;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Pre-classifies a source folder from declarative rules. Files are
+ * evaluated in parallel and metadata is only read when a rule actually
+ * needs it; EXIF and dimensions come from the file headers, images are
+ * never decoded.
+ */
+@Service
+public class ClassificationRuleService {
+
+    private static final DateTimeFormatter EXIF_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy:MM:dd HH:mm:ss");
+
+    private final ForkJoinPool pool;
+    private final MultimediaSorterService sorterService;
+
+    public ClassificationRuleService(@Value("${sorter.auto-classify.threads:4}") int threads,
+                                     MultimediaSorterService sorterService) {
+        this.pool = new ForkJoinPool(threads);
+        this.sorterService = sorterService;
+    }
+
+    public AutoClassifyResult classify(AutoClassifyRequest request) throws IOException {
+        Set<String> destinationNames = MultimediaSorterService.destinationPathsByName(request.getDestinations()).keySet();
+        List<CompiledRule> rules = new ArrayList<>();
+        for (ClassificationRule rule : request.getRules() != null ? request.getRules() : List.<ClassificationRule>of()) {
+            if (!destinationNames.contains(rule.getDestination())) {
+                throw new IOException("Destination folder not found: " + rule.getDestination());
+            }
+            rules.add(new CompiledRule(rule));
+        }
+
+        List<MultimediaInfo> files = sorterService.getMultimediaFilesFromDirectory(request.getSourcePath());
+        Map<String, String> classifications = new ConcurrentHashMap<>();
+        try {
+            pool.submit(() -> files.parallelStream().forEach(file -> {
+                String destination = firstMatch(rules, new FileFacts(Paths.get(file.getPath())));
+                if (destination != null) {
+                    classifications.put(file.getPath(), destination);
+                }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while classifying");
+        } catch (ExecutionException e) {
+            throw new IOException("Error classifying files: " + e.getCause().getMessage(), e.getCause());
+        }
+
+        return new AutoClassifyResult(classifications, files.size(), classifications.size());
+    }
+
+    private String firstMatch(List<CompiledRule> rules, FileFacts facts) {
+        for (CompiledRule rule : rules) {
+            if (rule.matches(facts)) {
+                return rule.destination;
+            }
+        }
+        return null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private static LocalDate parseDate(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date, expected yyyy-MM-dd: " + value);
+        }
+    }
+
+    private class CompiledRule {
+        private final String destination;
+        private final String type;
+        private final Set<String> extensions;
+        private final PathMatcher filenameMatcher;
+        private final String cameraModel;
+        private final LocalDate takenAfter;
+        private final LocalDate takenBefore;
+        private final ClassificationRule rule;
+
+        CompiledRule(ClassificationRule rule) throws IOException {
+            this.rule = rule;
+            this.destination = rule.getDestination();
+            this.type = rule.getType();
+            this.extensions = rule.getExtensions() == null ? null : rule.getExtensions().stream()
+                    .map(e -> (e.startsWith(".") ? e : "." + e).toLowerCase())
+                    .collect(Collectors.toSet());
+            this.cameraModel = rule.getCameraModel() == null ? null : rule.getCameraModel().toLowerCase();
+            try {
+                this.filenameMatcher = rule.getFilenamePattern() == null ? null
+                        : FileSystems.getDefault().getPathMatcher("glob:" + rule.getFilenamePattern());
+                this.takenAfter = parseDate(rule.getTakenAfter());
+                this.takenBefore = parseDate(rule.getTakenBefore());
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid rule for " + destination + ": " + e.getMessage());
+            }
+        }
+
+        boolean matches(FileFacts facts) {
+            // Cheap checks first so metadata is only read when it can make a difference
+            if (type != null && !type.equalsIgnoreCase(facts.type())) return false;
+            if (extensions != null && !extensions.contains(facts.extension())) return false;
+            if (filenameMatcher != null && !filenameMatcher.matches(facts.path.getFileName())) return false;
+
+            if (cameraModel != null) {
+                String model = facts.cameraModel();
+                if (model == null || !model.toLowerCase().contains(cameraModel)) return false;
+            }
+            if (takenAfter != null || takenBefore != null) {
+                LocalDateTime taken = facts.dateTaken();
+                if (taken == null) return false;
+                if (takenAfter != null && taken.toLocalDate().isBefore(takenAfter)) return false;
+                if (takenBefore != null && !taken.toLocalDate().isBefore(takenBefore)) return false;
+            }
+            if ((rule.getMinWidth() != null || rule.getMaxWidth() != null)
+                    && !inRange(facts.width(), rule.getMinWidth(), rule.getMaxWidth())) return false;
+            if ((rule.getMinHeight() != null || rule.getMaxHeight() != null)
+                    && !inRange(facts.height(), rule.getMinHeight(), rule.getMaxHeight())) return false;
+            if (rule.getMinDuration() != null || rule.getMaxDuration() != null) {
+                Float duration = facts.duration();
+                if (duration == null) return false;
+                if (rule.getMinDuration() != null && duration < rule.getMinDuration()) return false;
+                if (rule.getMaxDuration() != null && duration > rule.getMaxDuration()) return false;
+            }
+            return true;
+        }
+
+        private boolean inRange(Integer actual, Integer min, Integer max) {
+            if (actual == null) return false;
+            return (min == null || actual >= min) && (max == null || actual <= max);
+        }
+    }
+
+    /**
+     * What is known about a single file. Each piece of metadata is read the
+     * first time a rule asks for it.
+     */
+    private class FileFacts {
+        private final Path path;
+        private boolean exifLoaded;
+        private String cameraModel;
+        private LocalDateTime dateTaken;
+        private boolean dimensionsLoaded;
+        private Integer width;
+        private Integer height;
+        private Float duration;
+
+        FileFacts(Path path) {
+            this.path = path;
+        }
+
+        String extension() {
+            String fileName = path.getFileName().toString().toLowerCase();
+            int dot = fileName.lastIndexOf('.');
+            return dot < 0 ? "" : fileName.substring(dot);
+        }
+
+        String type() {
+            return sorterService.isVideoFile(path) ? "video" : "image";
+        }
+
+        String cameraModel() {
+            loadExif();
+            return cameraModel;
+        }
+
+        LocalDateTime dateTaken() {
+            loadExif();
+            return dateTaken;
+        }
+
+        Integer width() {
+            loadDimensions();
+            return width;
+        }
+
+        Integer height() {
+            loadDimensions();
+            return height;
+        }
+
+        Float duration() {
+            loadDimensions();
+            return duration;
+        }
+
+        private void loadExif() {
+            if (exifLoaded) {
+                return;
+            }
+            exifLoaded = true;
+
+            try {
+                Metadata metadata = ImageMetadataReader.readMetadata(path.toFile());
+                if (sorterService.isVideoFile(path)) {
+                    dateTaken = parseContainerDate(metadata);
+                } else {
+                    ExifIFD0Directory ifd0 = metadata.getFirstDirectoryOfType(ExifIFD0Directory.class);
+                    if (ifd0 != null) {
+                        cameraModel = ifd0.getString(ExifDirectoryBase.TAG_MODEL);
+                    }
+                    ExifSubIFDDirectory subIfd = metadata.getFirstDirectoryOfType(ExifSubIFDDirectory.class);
+                    if (subIfd != null) {
+                        dateTaken = parseExifDate(subIfd.getString(ExifDirectoryBase.TAG_DATETIME_ORIGINAL));
+                    }
+                    if (dateTaken == null && ifd0 != null) {
+                        dateTaken = parseExifDate(ifd0.getString(ExifDirectoryBase.TAG_DATETIME));
+                    }
+                }
+            } catch (Exception e) {
+                // No readable metadata, fall back to the file date below
+            }
+
+            if (dateTaken == null) {
+                try {
+                    dateTaken = LocalDateTime.ofInstant(Files.getLastModifiedTime(path).toInstant(), ZoneId.systemDefault());
+                } catch (IOException e) {
+                    // Leave it unknown, date rules won't match
+                }
+            }
+        }
+
+        private void loadDimensions() {
+            if (dimensionsLoaded) {
+                return;
+            }
+            dimensionsLoaded = true;
+
+            if (sorterService.isVideoFile(path)) {
+                try {
+                    MultimediaMetadata metadata = sorterService.getMediaMetadata(path.toString());
+                    width = metadata.getWidth();
+                    height = metadata.getHeight();
+                    duration = metadata.getDuration();
+                } catch (IOException e) {
+                    // Leave them unknown
+                }
+                return;
+            }
+
+            // Only the header is parsed, the pixels are never decoded
+            try (ImageInputStream input = ImageIO.createImageInputStream(path.toFile())) {
+                Iterator<ImageReader> readers = input == null ? Collections.emptyIterator() : ImageIO.getImageReaders(input);
+                if (readers.hasNext()) {
+                    ImageReader reader = readers.next();
+                    try {
+                        reader.setInput(input, true, true);
+                        width = reader.getWidth(0);
+                        height = reader.getHeight(0);
+                    } finally {
+                        reader.dispose();
+                    }
+                }
+            } catch (Exception e) {
+                // Leave them unknown
+            }
+        }
+
+        // MP4/MOV headers record when the clip was created; other containers fall back to the file date
+        private LocalDateTime parseContainerDate(Metadata metadata) {
+            Date created = null;
+            Mp4Directory mp4 = metadata.getFirstDirectoryOfType(Mp4Directory.class);
+            if (mp4 != null) {
+                created = mp4.getDate(Mp4Directory.TAG_CREATION_TIME);
+            }
+            QuickTimeDirectory quickTime = metadata.getFirstDirectoryOfType(QuickTimeDirectory.class);
+            if (created == null && quickTime != null) {
+                created = quickTime.getDate(QuickTimeDirectory.TAG_CREATION_TIME);
+            }
+            // Devices without a clock leave it at zero, i.e. the 1904 epoch of the format
+            if (created == null || created.getTime() <= 0) {
+                return null;
+            }
+            return LocalDateTime.ofInstant(created.toInstant(), ZoneId.systemDefault());
+        }
+
+        private LocalDateTime parseExifDate(String value) {
+            if (value == null) {
+                return null;
+            }
+            try {
+                return LocalDateTime.parse(value.trim(), EXIF_DATE_FORMAT);
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.pablogb.multimediasorterapp.service;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * In-memory cache of the JSON files under ~/.imagesorter. Reads are served
+ * from memory and only re-parse a file when its mtime changes (checked at
+ * most every couple of seconds). Writes update memory right away and are
+ * flushed to disk shortly after, so a burst of saves results in one atomic
+ * temp + rename. A failed flush is retried, and the next save of that file
+ * is written synchronously so the caller sees the error.
+ */
+@Component
+public class ConfigurationStore {
+
+    private static final long MTIME_CHECK_INTERVAL_MILLIS = 2000;
+    private static final long WRITE_DELAY_MILLIS = 500;
+    private static final long RETRY_DELAY_MILLIS = 5000;
+
+    private final long mtimeCheckIntervalMillis;
+    private final long writeDelayMillis;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Path, CachedFile> files = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "config-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ConfigurationStore() {
+        this(MTIME_CHECK_INTERVAL_MILLIS, WRITE_DELAY_MILLIS);
+    }
+
+    ConfigurationStore(long mtimeCheckIntervalMillis, long writeDelayMillis) {
+        this.mtimeCheckIntervalMillis = mtimeCheckIntervalMillis;
+        this.writeDelayMillis = writeDelayMillis;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T read(Path file, JavaType type, Supplier<T> defaultValue) throws IOException {
+        CachedFile entry = files.computeIfAbsent(file, CachedFile::new);
+
+        synchronized (entry) {
+            long now = System.currentTimeMillis();
+            // A pending write is always newer than what's on disk
+            if (entry.dirty || (entry.loaded && now - entry.lastChecked < mtimeCheckIntervalMillis)) {
+                return (T) entry.value;
+            }
+
+            FileTime mtime = Files.exists(file) ? Files.getLastModifiedTime(file) : null;
+            entry.lastChecked = now;
+            if (entry.loaded && Objects.equals(mtime, entry.mtime)) {
+                return (T) entry.value;
+            }
+
+            entry.value = mtime == null ? defaultValue.get() : objectMapper.readValue(file.toFile(), type);
+            entry.mtime = mtime;
+            entry.loaded = true;
+            return (T) entry.value;
+        }
+    }
+
+    /**
+     * Stores the value and schedules it to be written. If the previous
+     * background write of this file failed, the value is written right away
+     * instead so the caller gets the error.
+     */
+    public void write(Path file, Object value) throws IOException {
+        CachedFile entry = files.computeIfAbsent(file, CachedFile::new);
+
+        synchronized (entry) {
+            entry.value = value;
+            entry.loaded = true;
+            entry.dirty = true;
+
+            if (entry.failure != null) {
+                cancelPendingWrite(entry);
+                try {
+                    writeToDisk(entry);
+                } catch (IOException e) {
+                    scheduleWrite(entry, RETRY_DELAY_MILLIS);
+                    throw e;
+                }
+            } else if (entry.pendingWrite == null) {
+                scheduleWrite(entry, writeDelayMillis);
+            }
+        }
+    }
+
+    public void delete(Path file) throws IOException {
+        CachedFile entry = files.remove(file);
+        if (entry != null) {
+            synchronized (entry) {
+                cancelPendingWrite(entry);
+                entry.dirty = false;
+            }
+        }
+        Files.deleteIfExists(file);
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        writer.shutdown();
+        for (CachedFile entry : files.values()) {
+            flush(entry);
+        }
+    }
+
+    private void flush(CachedFile entry) {
+        synchronized (entry) {
+            entry.pendingWrite = null;
+            if (!entry.dirty) {
+                return;
+            }
+
+            try {
+                writeToDisk(entry);
+            } catch (IOException e) {
+                System.err.println("Could not save " + entry.file + ", retrying: " + e.getMessage());
+                scheduleWrite(entry, RETRY_DELAY_MILLIS);
+            }
+        }
+    }
+
+    private void writeToDisk(CachedFile entry) throws IOException {
+        try {
+            Files.createDirectories(entry.file.getParent());
+            Path temp = entry.file.resolveSibling(entry.file.getFileName() + ".tmp");
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), entry.value);
+            try {
+                Files.move(temp, entry.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, entry.file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            entry.failure = e;
+            throw e;
+        }
+        entry.mtime = Files.getLastModifiedTime(entry.file);
+        entry.lastChecked = System.currentTimeMillis();
+        entry.dirty = false;
+        entry.failure = null;
+    }
+
+    private void scheduleWrite(CachedFile entry, long delayMillis) {
+        if (entry.pendingWrite != null || writer.isShutdown()) {
+            return;
+        }
+        entry.pendingWrite = writer.schedule(() -> flush(entry), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelPendingWrite(CachedFile entry) {
+        if (entry.pendingWrite != null) {
+            entry.pendingWrite.cancel(false);
+            entry.pendingWrite = null;
+        }
+    }
+
+    private static class CachedFile {
+        private final Path file;
+        private Object value;
+        private FileTime mtime;
+        private long lastChecked;
+        private boolean loaded;
+        private boolean dirty;
+        private IOException failure; // last write error, cleared by a successful write
+        private ScheduledFuture<?> pendingWrite;
+
+        CachedFile(Path file) {
+            this.file = file;
+        }
+    }
+}
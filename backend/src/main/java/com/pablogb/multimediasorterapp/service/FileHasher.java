@@ -0,0 +1,115 @@
+package com.pablogb.multimediasorterapp.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HexFormat;
+
+/**
+ * Streams files through a digest, charging the reads and writes to the
+ * {@link IoThrottle} since this is only used for bulk sort I/O. Hashes
+ * are returned tagged with the algorithm that produced them
+ * ("crc32c:1a2b3c4d") so values computed with different algorithms are
+ * never compared as equal.
+ */
+@Component
+public class FileHasher {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final HashAlgorithm algorithm;
+    private final IoThrottle ioThrottle;
+
+    public FileHasher(@Value("${sorter.hash.algorithm:CRC32C}") HashAlgorithm algorithm, IoThrottle ioThrottle) {
+        this.algorithm = algorithm;
+        this.ioThrottle = ioThrottle;
+    }
+
+    public HashAlgorithm getAlgorithm() { return algorithm; }
+
+    public String hash(Path file) throws IOException {
+        return hash(file, algorithm);
+    }
+
+    public String hash(Path file, HashAlgorithm algorithm) throws IOException {
+        HashAlgorithm.Digest digest = algorithm.newDigest();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        IoThrottle.Budget readBudget = ioThrottle.forFile(file);
+
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                readBudget.acquire(read);
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return tag(algorithm, digest.finish());
+    }
+
+    /**
+     * Copies source to destination and returns the hash of the bytes read,
+     * so the source only has to be read once.
+     */
+    public String copyAndHash(Path source, Path destination) throws IOException {
+        HashAlgorithm.Digest digest = algorithm.newDigest();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        IoThrottle.Budget readBudget = ioThrottle.forFile(source);
+        IoThrottle.Budget writeBudget = ioThrottle.forFile(destination);
+
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(destination, StandardOpenOption.WRITE,
+                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                readBudget.acquire(read);
+                writeBudget.acquire(read);
+                buffer.flip();
+                digest.update(buffer.duplicate());
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                buffer.clear();
+            }
+        }
+        return tag(algorithm, digest.finish());
+    }
+
+    /**
+     * Decides whether two files have the same content, for deleting a
+     * source that already exists at the destination. Always uses SHA-256
+     * regardless of the configured algorithm: a 32-bit checksum is fine to
+     * catch a corrupted copy but not to tell two unrelated files apart.
+     */
+    public boolean isDuplicate(Path first, Path second) throws IOException {
+        if (Files.size(first) != Files.size(second)) {
+            return false;
+        }
+        return hash(first, HashAlgorithm.SHA256).equals(hash(second, HashAlgorithm.SHA256));
+    }
+
+    /**
+     * Checks a file against a previously computed hash, using whichever
+     * algorithm the stored hash was tagged with.
+     */
+    public boolean matches(String taggedHash, Path file) throws IOException {
+        int separator = taggedHash.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Hash is not tagged with an algorithm: " + taggedHash);
+        }
+        HashAlgorithm stored = HashAlgorithm.fromTag(taggedHash.substring(0, separator));
+        return taggedHash.equals(hash(file, stored));
+    }
+
+    private static String tag(HashAlgorithm algorithm, byte[] hash) {
+        return algorithm.getTag() + ":" + HEX.formatHex(hash);
+    }
+}
@@ -0,0 +1,273 @@
+package com.pablogb.multimediasorterapp.service;
+
+import com.pablogb.multimediasorterapp.model.FolderMediaCount;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cached folder listings for the folder picker. Listings are kept for a
+ * short TTL and dropped early when a WatchService reports a change (watches
+ * may not fire on network mounts, hence the TTL). Media counts per folder
+ * are computed in the background and streamed to the client; counts nobody
+ * is listening for anymore are cancelled before they start.
+ */
+@Service
+public class FolderTreeService {
+
+    private static final int MAX_CACHED_FOLDERS = 256;
+    private static final int MAX_CACHED_COUNTS = 8192;
+
+    private final long listingTtlMillis;
+    private final long countTtlMillis;
+    private final Map<Path, CachedListing> listings;
+    private final Map<Path, CachedCount> counts = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, CachedCount> eldest) {
+            return size() > MAX_CACHED_COUNTS;
+        }
+    });
+    private final ExecutorService countWorkers;
+    private final WatchService watchService;
+
+    @Autowired
+    private MultimediaSorterService sorterService;
+
+    public FolderTreeService(@Value("${sorter.folders.listing-ttl-seconds:10}") long listingTtlSeconds,
+                             @Value("${sorter.folders.count-ttl-seconds:60}") long countTtlSeconds,
+                             @Value("${sorter.folders.count-workers:4}") int countWorkerCount) {
+        this.listingTtlMillis = TimeUnit.SECONDS.toMillis(listingTtlSeconds);
+        this.countTtlMillis = TimeUnit.SECONDS.toMillis(countTtlSeconds);
+        this.listings = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, CachedListing> eldest) {
+                if (size() > MAX_CACHED_FOLDERS) {
+                    eldest.getValue().cancelWatch();
+                    return true;
+                }
+                return false;
+            }
+        });
+        this.countWorkers = Executors.newFixedThreadPool(countWorkerCount, r -> {
+            Thread thread = new Thread(r, "folder-count");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.watchService = createWatchService();
+        if (watchService != null) {
+            Thread watcher = new Thread(this::processWatchEvents, "folder-watch");
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+    }
+
+    public List<String> listFolders(String path) throws IOException {
+        Path dirPath = Paths.get(path).toAbsolutePath().normalize();
+
+        CachedListing cached = listings.get(dirPath);
+        if (cached != null && System.currentTimeMillis() - cached.loadedAt < listingTtlMillis) {
+            return cached.folders;
+        }
+
+        if (!Files.isDirectory(dirPath)) {
+            return Collections.emptyList();
+        }
+
+        List<String> folders = new ArrayList<>();
+        // On Windows walkFileTree reuses the attributes read while listing the
+        // directory; elsewhere it still stats each entry once
+        Files.walkFileTree(dirPath, EnumSet.noneOf(FileVisitOption.class), 1, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                // Attributes are read without following links, resolve symlinks and junctions explicitly
+                boolean directory = attrs.isDirectory()
+                        || ((attrs.isSymbolicLink() || attrs.isOther()) && Files.isDirectory(file));
+                if (directory) {
+                    folders.add(file.toAbsolutePath().toString());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        Collections.sort(folders);
+
+        List<String> result = Collections.unmodifiableList(folders);
+        listings.put(dirPath, new CachedListing(result, watch(dirPath, cached)));
+        return result;
+    }
+
+    /**
+     * Streams a {@link FolderMediaCount} for every subfolder of the given
+     * path as soon as it's known, then completes.
+     */
+    public SseEmitter streamMediaCounts(String path) throws IOException {
+        List<String> folders = listFolders(path);
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(5));
+        if (folders.isEmpty()) {
+            emitter.complete();
+            return emitter;
+        }
+
+        // Once the client moves on to another folder, its queued scans are skipped
+        Queue<CompletableFuture<Integer>> pending = new ConcurrentLinkedQueue<>();
+        AtomicBoolean closed = new AtomicBoolean();
+        Runnable cancel = () -> {
+            closed.set(true);
+            pending.forEach(future -> future.cancel(false));
+        };
+        emitter.onCompletion(cancel);
+        emitter.onTimeout(cancel);
+        emitter.onError(error -> cancel.run());
+
+        CountDownLatch remaining = new CountDownLatch(folders.size());
+        for (String folder : folders) {
+            CompletableFuture<Integer> future = CompletableFuture.supplyAsync(
+                    () -> countMedia(Paths.get(folder)), countWorkers);
+            pending.add(future);
+            if (closed.get()) {
+                future.cancel(false);
+            }
+            future.whenComplete((count, error) -> {
+                try {
+                    if (error == null && !closed.get()) {
+                        synchronized (emitter) {
+                            emitter.send(new FolderMediaCount(folder, count));
+                        }
+                    }
+                } catch (Exception e) {
+                    // Client went away, the scans that already ran still get cached
+                    cancel.run();
+                } finally {
+                    remaining.countDown();
+                    if (remaining.getCount() == 0 && !closed.get()) {
+                        emitter.complete();
+                    }
+                }
+            });
+        }
+        return emitter;
+    }
+
+    private int countMedia(Path folder) {
+        CachedCount cached = counts.get(folder);
+        if (cached != null && System.currentTimeMillis() - cached.loadedAt < countTtlMillis) {
+            return cached.count;
+        }
+
+        int count = 0;
+        // Names are checked first so only entries that look like media get a stat
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(folder)) {
+            for (Path entry : entries) {
+                if (sorterService.isMediaFile(entry) && Files.isRegularFile(entry)) {
+                    count++;
+                }
+            }
+        } catch (IOException e) {
+            return 0;
+        }
+        counts.put(folder, new CachedCount(count));
+        return count;
+    }
+
+    private WatchKey watch(Path dir, CachedListing previous) {
+        if (previous != null && previous.watchKey != null && previous.watchKey.isValid()) {
+            return previous.watchKey;
+        }
+        if (watchService == null) {
+            return null;
+        }
+        try {
+            return dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    private void processWatchEvents() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            Path dir = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW || event.context() == null) {
+                    continue;
+                }
+                Path child = dir.resolve((Path) event.context());
+                CachedListing removed = listings.remove(child);
+                if (removed != null) {
+                    removed.cancelWatch();
+                }
+                counts.remove(child);
+            }
+            // Keep the watch registered but force the next listing to reload
+            CachedListing cached = listings.get(dir);
+            if (cached != null) {
+                cached.loadedAt = 0;
+            }
+            counts.remove(dir);
+            key.reset();
+        }
+    }
+
+    private WatchService createWatchService() {
+        try {
+            return FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException e) {
+            System.err.println("Folder watching not available, relying on cache TTL: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        countWorkers.shutdownNow();
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private static class CachedListing {
+        private final List<String> folders;
+        private final WatchKey watchKey;
+        private volatile long loadedAt = System.currentTimeMillis();
+
+        CachedListing(List<String> folders, WatchKey watchKey) {
+            this.folders = folders;
+            this.watchKey = watchKey;
+        }
+
+        void cancelWatch() {
+            if (watchKey != null) {
+                watchKey.cancel();
+            }
+        }
+    }
+
+    private static class CachedCount {
+        private final int count;
+        private final long loadedAt = System.currentTimeMillis();
+
+        CachedCount(int count) {
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.pablogb.multimediasorterapp.service;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32C;
+
+public enum HashAlgorithm {
+    // Hardware accelerated on most CPUs, good enough to catch corrupted copies
+    CRC32C("crc32c") {
+        @Override
+        public Digest newDigest() {
+            CRC32C crc = new CRC32C();
+            return new Digest() {
+                @Override
+                public void update(ByteBuffer buffer) { crc.update(buffer); }
+
+                @Override
+                public byte[] finish() {
+                    return ByteBuffer.allocate(Integer.BYTES).putInt((int) crc.getValue()).array();
+                }
+            };
+        }
+    },
+    SHA256("sha256") {
+        @Override
+        public Digest newDigest() {
+            try {
+                MessageDigest md = MessageDigest.getInstance("SHA-256");
+                return new Digest() {
+                    @Override
+                    public void update(ByteBuffer buffer) { md.update(buffer); }
+
+                    @Override
+                    public byte[] finish() { return md.digest(); }
+                };
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+    };
+
+    private final String tag;
+
+    HashAlgorithm(String tag) {
+        this.tag = tag;
+    }
+
+    public String getTag() { return tag; }
+
+    public abstract Digest newDigest();
+
+    public static HashAlgorithm fromTag(String tag) {
+        for (HashAlgorithm algorithm : values()) {
+            if (algorithm.tag.equalsIgnoreCase(tag)) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unknown hash algorithm: " + tag);
+    }
+
+    public interface Digest {
+        void update(ByteBuffer buffer);
+        byte[] finish();
+    }
+}
@@ -0,0 +1,236 @@
+package com.pablogb.multimediasorterapp.service;
+
+import com.pablogb.multimediasorterapp.model.IoThrottleSettings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileStore;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the disk I/O done by sorts so previews stay responsive. Each
+ * device gets a token bucket for bytes and one for operations. Bulk I/O
+ * pauses while preview requests are in flight, and backs off
+ * (multiplicative decrease, additive increase) when preview latency goes
+ * over the target. The backoff also recovers for every second without a
+ * new latency sample, so it doesn't stay low once previews stop. With no
+ * explicit limit the backoff is applied to the throughput the device was
+ * reaching before it kicked in.
+ */
+@Component
+public class IoThrottle {
+
+    private static final double MIN_BACKOFF = 0.05;
+    private static final double BACKOFF_DECREASE = 0.5;
+    private static final double BACKOFF_INCREASE = 0.05;
+    private static final double LATENCY_SMOOTHING = 0.3;
+    private static final long MAX_YIELD_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final long YIELD_STEP_MILLIS = 5;
+    private static final long RECOVERY_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+    private final Map<FileStore, Device> devices = new ConcurrentHashMap<>();
+    private final AtomicInteger activePreviews = new AtomicInteger();
+    private final SortPlanService sortPlanService;
+    private final Clock clock;
+
+    private volatile long bytesPerSecond;
+    private volatile int opsPerSecond;
+    private volatile boolean yieldToPreviews;
+    private volatile long targetPreviewLatencyMillis;
+    private volatile double backoffFactor = 1.0;
+    private volatile long backoffUpdated;
+    private volatile Double previewLatencyMillis;
+
+    @Autowired
+    public IoThrottle(@Value("${sorter.io.bytes-per-second:0}") long bytesPerSecond,
+                      @Value("${sorter.io.ops-per-second:0}") int opsPerSecond,
+                      @Value("${sorter.io.yield-to-previews:true}") boolean yieldToPreviews,
+                      @Value("${sorter.io.target-preview-latency-ms:250}") long targetPreviewLatencyMillis,
+                      SortPlanService sortPlanService) {
+        this(bytesPerSecond, opsPerSecond, yieldToPreviews, targetPreviewLatencyMillis, sortPlanService,
+                Clock.systemUTC());
+    }
+
+    IoThrottle(long bytesPerSecond, int opsPerSecond, boolean yieldToPreviews, long targetPreviewLatencyMillis,
+               SortPlanService sortPlanService, Clock clock) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.opsPerSecond = opsPerSecond;
+        this.yieldToPreviews = yieldToPreviews;
+        this.targetPreviewLatencyMillis = targetPreviewLatencyMillis;
+        this.sortPlanService = sortPlanService;
+        this.clock = clock;
+        this.backoffUpdated = clock.millis();
+    }
+
+    /**
+     * Returns the budget to charge bulk I/O on the given file against. Look
+     * it up once per file and call {@link Budget#acquire} for every chunk.
+     */
+    public Budget forFile(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        FileStore store = sortPlanService.getFileStore(directory);
+        return devices.computeIfAbsent(store, s -> new Device())::acquire;
+    }
+
+    public void previewStarted() {
+        activePreviews.incrementAndGet();
+    }
+
+    public void previewFinished(Long latencyMillis) {
+        activePreviews.decrementAndGet();
+        if (latencyMillis == null) {
+            return;
+        }
+
+        synchronized (this) {
+            Double previous = previewLatencyMillis;
+            double smoothed = previous == null ? latencyMillis
+                    : previous + LATENCY_SMOOTHING * (latencyMillis - previous);
+            previewLatencyMillis = smoothed;
+
+            double factor = currentBackoff();
+            if (smoothed > targetPreviewLatencyMillis) {
+                backoffFactor = Math.max(MIN_BACKOFF, factor * BACKOFF_DECREASE);
+            } else {
+                backoffFactor = Math.min(1.0, factor + BACKOFF_INCREASE);
+            }
+            backoffUpdated = clock.millis();
+        }
+    }
+
+    private double currentBackoff() {
+        if (backoffFactor >= 1.0) {
+            return 1.0;
+        }
+        synchronized (this) {
+            long intervals = (clock.millis() - backoffUpdated) / RECOVERY_INTERVAL_MILLIS;
+            if (intervals > 0) {
+                backoffFactor = Math.min(1.0, backoffFactor + intervals * BACKOFF_INCREASE);
+                backoffUpdated += intervals * RECOVERY_INTERVAL_MILLIS;
+            }
+            return backoffFactor;
+        }
+    }
+
+    public IoThrottleSettings getSettings() {
+        IoThrottleSettings settings = new IoThrottleSettings();
+        settings.setBytesPerSecond(bytesPerSecond);
+        settings.setOpsPerSecond(opsPerSecond);
+        settings.setYieldToPreviews(yieldToPreviews);
+        settings.setTargetPreviewLatencyMillis(targetPreviewLatencyMillis);
+        settings.setBackoffFactor(currentBackoff());
+        settings.setPreviewLatencyMillis(previewLatencyMillis);
+        return settings;
+    }
+
+    public IoThrottleSettings updateSettings(IoThrottleSettings settings) {
+        bytesPerSecond = Math.max(0, settings.getBytesPerSecond());
+        opsPerSecond = Math.max(0, settings.getOpsPerSecond());
+        yieldToPreviews = settings.isYieldToPreviews();
+        if (settings.getTargetPreviewLatencyMillis() > 0) {
+            targetPreviewLatencyMillis = settings.getTargetPreviewLatencyMillis();
+        }
+        return getSettings();
+    }
+
+    public interface Budget {
+        void acquire(int bytes) throws IOException;
+    }
+
+    private class Device {
+        private final TokenBucket bytes = new TokenBucket();
+        private final TokenBucket ops = new TokenBucket();
+        // Throughput reached while nothing was limiting it, the base for backing off
+        private double unthrottledBytesPerSecond;
+        private long windowStart = System.nanoTime();
+        private long windowBytes;
+
+        void acquire(int amount) throws IOException {
+            try {
+                waitForPreviews();
+
+                double factor = currentBackoff();
+                long byteLimit = bytesPerSecond;
+                long byteRate = byteLimit > 0 ? (long) (byteLimit * factor)
+                        : factor < 1.0 ? (long) (baseRate() * factor) : 0;
+                long opRate = opsPerSecond > 0 ? Math.max(1, (long) (opsPerSecond * factor)) : 0;
+
+                if (byteRate == 0 && opRate == 0) {
+                    measure(amount);
+                }
+                sleepNanos(Math.max(bytes.take(amount, byteRate), ops.take(1, opRate)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while throttled");
+            }
+        }
+
+        private void waitForPreviews() throws InterruptedException {
+            if (!yieldToPreviews) {
+                return;
+            }
+            // Bounded so a stream of previews can slow a sort down but never stall it
+            long deadline = System.nanoTime() + MAX_YIELD_NANOS;
+            while (activePreviews.get() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(YIELD_STEP_MILLIS);
+            }
+        }
+
+        private synchronized void measure(int amount) {
+            windowBytes += amount;
+            long elapsed = System.nanoTime() - windowStart;
+            if (elapsed >= TimeUnit.MILLISECONDS.toNanos(500)) {
+                double rate = windowBytes / (elapsed / 1_000_000_000.0);
+                unthrottledBytesPerSecond = unthrottledBytesPerSecond == 0 ? rate
+                        : unthrottledBytesPerSecond + 0.2 * (rate - unthrottledBytesPerSecond);
+                windowStart = System.nanoTime();
+                windowBytes = 0;
+            }
+        }
+
+        private synchronized double baseRate() {
+            return unthrottledBytesPerSecond;
+        }
+
+        private void sleepNanos(long nanos) throws InterruptedException {
+            if (nanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(nanos);
+            }
+        }
+    }
+
+    /**
+     * Bucket holding up to one second worth of tokens. Takes are allowed to
+     * go into debt; the caller then sleeps until the debt is paid off.
+     */
+    private static class TokenBucket {
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+
+        /**
+         * Takes tokens at the given rate (0 = unlimited) and returns how long
+         * the caller must wait, in nanoseconds.
+         */
+        synchronized long take(long amount, long ratePerSecond) {
+            long now = System.nanoTime();
+            if (ratePerSecond <= 0) {
+                tokens = 0;
+                lastRefill = now;
+                return 0;
+            }
+
+            tokens = Math.min(ratePerSecond, tokens + (now - lastRefill) / 1_000_000_000.0 * ratePerSecond);
+            lastRefill = now;
+            tokens -= amount;
+            return tokens >= 0 ? 0 : (long) (-tokens / ratePerSecond * 1_000_000_000.0);
+        }
+    }
+}
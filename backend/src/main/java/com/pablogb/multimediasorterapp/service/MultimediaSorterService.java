@@ -1,5 +1,6 @@
 package com.pablogb.multimediasorterapp.service;
 
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.type.CollectionType;
 import com.fasterxml.jackson.databind.type.MapType;
@@ -9,6 +10,7 @@ import com.github.kokorin.jaffree.ffprobe.FFprobe;
 import com.github.kokorin.jaffree.ffprobe.FFprobeResult;
 import com.github.kokorin.jaffree.ffprobe.Stream;
 import com.pablogb.multimediasorterapp.model.*;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.imageio.ImageIO;
@@ -18,9 +20,6 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.List;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -37,8 +36,19 @@ public class MultimediaSorterService {
             ".mp4", ".avi", ".mov", ".webm", ".mkv", ".flv", ".wmv", ".m4v"
     );
 
+    private static final int MAX_ERRORS_IN_MESSAGE = 50;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    @Autowired
+    private FileHasher fileHasher;
+
+    @Autowired
+    private ConfigurationStore configurationStore;
+
+    @Autowired
+    private SortPlanService sortPlanService;
+
     public List<MultimediaInfo> getMultimediaFilesFromDirectory(String sourcePath) throws IOException {
         Path path = Paths.get(sourcePath);
         if (!Files.exists(path) || !Files.isDirectory(path)) {
@@ -55,12 +65,17 @@ public class MultimediaSorterService {
         }
     }
 
-    private boolean isMediaFile(Path path) {
+    public boolean isMediaFile(Path path) {
         String fileName = path.getFileName().toString().toLowerCase();
         return IMAGE_EXTENSIONS.stream().anyMatch(fileName::endsWith) ||
                 VIDEO_EXTENSIONS.stream().anyMatch(fileName::endsWith);
     }
 
+    public boolean isVideoFile(Path path) {
+        String fileName = path.getFileName().toString().toLowerCase();
+        return VIDEO_EXTENSIONS.stream().anyMatch(fileName::endsWith);
+    }
+
     private MultimediaInfo createMultimediaInfo(Path path) {
         try {
             return new MultimediaInfo(
@@ -166,93 +181,98 @@ public class MultimediaSorterService {
         int skipped = 0;
         int failed = 0;
         List<String> errors = new ArrayList<>();
+        Map<String, String> destinationPaths = destinationPathsByName(request.getDestinations());
 
-        for (Map.Entry<String, String> entry : request.getClassifications().entrySet()) {
-            String sourcePath = entry.getKey();
-            String destFolder = entry.getValue();
-
-            // Find destination path
-            String destPath = request.getDestinations().stream()
-                    .filter(d -> d.getName().equals(destFolder))
-                    .map(Destination::getPath)
-                    .findFirst()
-                    .orElse(null);
+        // Refuse to start if a destination device would fill up halfway through
+        SortPlanService.PlannedSort planned = sortPlanService.plan(request);
+        sortPlanService.checkSpace(planned.getPlan());
 
-            if (destPath == null) {
-                errors.add("Destination folder not found: " + destFolder);
+        for (Map.Entry<String, String> entry : planned.getOrderedClassifications().entrySet()) {
+            SortFileResult result = sortFile(entry.getKey(), entry.getValue(), destinationPaths);
+            if (SortFileResult.COPIED.equals(result.getStatus())) {
+                copied++;
+            } else if (SortFileResult.SKIPPED.equals(result.getStatus())) {
+                skipped++;
+            } else {
                 failed++;
-                continue;
+                // Keep the message bounded, the batched endpoints expose every error
+                if (errors.size() < MAX_ERRORS_IN_MESSAGE) {
+                    errors.add(result.getError());
+                }
             }
+        }
 
-            try {
-                Path source = Paths.get(sourcePath);
-                Path destDir = Paths.get(destPath);
+        String message = String.format("Copied: %d, Skipped (duplicates): %d, Failed: %d",
+                copied, skipped, failed);
 
-                // Create destination directory if it doesn't exist
-                Files.createDirectories(destDir);
+        if (!errors.isEmpty()) {
+            message += "\nErrors:\n" + String.join("\n", errors);
+            if (failed > errors.size()) {
+                message += "\n... and " + (failed - errors.size()) + " more";
+            }
+        }
 
-                Path destination = destDir.resolve(source.getFileName());
+        return new SortResult(failed == 0, message, copied, skipped, failed);
+    }
 
-                // Check for duplicates
-                if (Files.exists(destination)) {
-                    String sourceHash = calculateFileHash(source);
-                    String destHash = calculateFileHash(destination);
+    public static Map<String, String> destinationPathsByName(List<Destination> destinations) {
+        Map<String, String> paths = new HashMap<>();
+        if (destinations != null) {
+            for (Destination destination : destinations) {
+                paths.putIfAbsent(destination.getName(), destination.getPath());
+            }
+        }
+        return paths;
+    }
 
-                    if (sourceHash.equals(destHash)) {
-                        // Exact duplicate, just delete source
-                        Files.delete(source);
-                        skipped++;
-                        continue;
-                    } else {
-                        // Different file with same name, rename
-                        destination = findUniqueFileName(destDir, source.getFileName().toString());
-                    }
-                }
+    public SortFileResult sortFile(String sourcePath, String destFolder, Map<String, String> destinationPaths) {
+        // Find destination path
+        String destPath = destinationPaths.get(destFolder);
 
-                // Copy file
-                Files.copy(source, destination, StandardCopyOption.REPLACE_EXISTING);
+        if (destPath == null) {
+            return SortFileResult.failed(sourcePath, "Destination folder not found: " + destFolder);
+        }
 
-                // Verify with hash
-                String sourceHash = calculateFileHash(source);
-                String destHash = calculateFileHash(destination);
+        try {
+            Path source = Paths.get(sourcePath);
+            Path destDir = Paths.get(destPath);
 
-                if (!sourceHash.equals(destHash)) {
-                    Files.delete(destination);
-                    errors.add("Hash verification failed for: " + source.getFileName());
-                    failed++;
-                    continue;
-                }
+            // Create destination directory if it doesn't exist
+            Files.createDirectories(destDir);
 
-                // Delete source after successful verification
-                Files.delete(source);
-                copied++;
+            Path destination = destDir.resolve(source.getFileName());
 
-            } catch (Exception e) {
-                errors.add("Error processing " + sourcePath + ": " + e.getMessage());
-                failed++;
+            // Check for duplicates
+            if (Files.exists(destination)) {
+                if (fileHasher.isDuplicate(source, destination)) {
+                    // Exact duplicate, just delete source
+                    Files.delete(source);
+                    return SortFileResult.skipped(sourcePath, destination.toString());
+                } else {
+                    // Different file with same name, rename
+                    destination = findUniqueFileName(destDir, source.getFileName().toString());
+                }
             }
-        }
 
-        String message = String.format("Copied: %d, Skipped (duplicates): %d, Failed: %d",
-                copied, skipped, failed);
+            // Copy file, hashing the source as it is read
+            long started = System.nanoTime();
+            String sourceHash = fileHasher.copyAndHash(source, destination);
 
-        if (!errors.isEmpty()) {
-            message += "\nErrors:\n" + String.join("\n", errors);
-        }
+            // Verify with hash
+            if (!fileHasher.matches(sourceHash, destination)) {
+                Files.delete(destination);
+                return SortFileResult.failed(sourcePath, "Hash verification failed for: " + source.getFileName());
+            }
 
-        return new SortResult(failed == 0, message, copied, skipped, failed);
-    }
+            sortPlanService.recordCopy(source, destDir, Files.size(destination), System.nanoTime() - started);
 
-    private String calculateFileHash(Path file) throws IOException, NoSuchAlgorithmException {
-        MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        byte[] fileBytes = Files.readAllBytes(file);
-        byte[] hashBytes = digest.digest(fileBytes);
+            // Delete source after successful verification
+            Files.delete(source);
+            return SortFileResult.copied(sourcePath, destination.toString());
 
-        StringBuilder sb = new StringBuilder();
-        for (byte b : hashBytes) {
-            sb.append(String.format("%02x", b));
+        } catch (Exception e) {
+            return SortFileResult.failed(sourcePath, "Error processing " + sourcePath + ": " + e.getMessage());
         }
-        return sb.toString();
     }
 
     private Path findUniqueFileName(Path directory, String originalFileName) {
@@ -273,25 +293,18 @@ public class MultimediaSorterService {
 
     public SessionState loadSession(String sourcePath) throws IOException {
         Path sessionFile = getSessionFilePath(sourcePath);
-
-        if (!Files.exists(sessionFile)) {
-            return new SessionState();
-        }
-
-        return objectMapper.readValue(sessionFile.toFile(), SessionState.class);
+        JavaType sessionType = objectMapper.getTypeFactory().constructType(SessionState.class);
+        return configurationStore.read(sessionFile, sessionType, SessionState::new);
     }
 
     public void saveSession(SessionState session) throws IOException {
         Path sessionFile = getSessionFilePath(session.getSourcePath());
-        Files.createDirectories(sessionFile.getParent());
-        objectMapper.writerWithDefaultPrettyPrinter().writeValue(sessionFile.toFile(), session);
+        configurationStore.write(sessionFile, session);
     }
 
     public void deleteSession(String sourcePath) throws IOException {
         Path sessionFile = getSessionFilePath(sourcePath);
-        if (Files.exists(sessionFile)) {
-            Files.delete(sessionFile);
-        }
+        configurationStore.delete(sessionFile);
     }
 
     private Path getSessionFilePath(String sourcePath) {
@@ -304,22 +317,6 @@ public class MultimediaSorterService {
         return sessionDir.resolve(safeName);
     }
 
-    public List<String> listFolders(String path) throws IOException {
-        Path dirPath = Paths.get(path);
-
-        if (!Files.exists(dirPath) || !Files.isDirectory(dirPath)) {
-            return Collections.emptyList();
-        }
-
-        try (java.util.stream.Stream<Path> paths = Files.list(dirPath)) {
-            return paths
-                    .filter(Files::isDirectory)
-                    .map(p -> p.toAbsolutePath().toString())
-                    .sorted()
-                    .collect(Collectors.toList());
-        }
-    }
-
     public PathValidation validatePath(String path) {
         Path p = Paths.get(path);
         boolean exists = Files.exists(p);
@@ -333,39 +330,31 @@ public class MultimediaSorterService {
     public List<Destination> loadDestinations() throws IOException {
         Path configFile = getDestinationsConfigPath();
 
-        if (!Files.exists(configFile)) {
-            return Collections.emptyList();
-        }
-
-        return objectMapper.readValue(
-                configFile.toFile(),
-                objectMapper.getTypeFactory().constructCollectionType(List.class, Destination.class)
+        return configurationStore.read(
+                configFile,
+                objectMapper.getTypeFactory().constructCollectionType(List.class, Destination.class),
+                Collections::emptyList
         );
     }
 
     public void saveDestinations(List<Destination> destinations) throws IOException {
         Path configFile = getDestinationsConfigPath();
-        Files.createDirectories(configFile.getParent());
-        objectMapper.writerWithDefaultPrettyPrinter().writeValue(configFile.toFile(), destinations);
+        configurationStore.write(configFile, destinations);
     }
 
     public Map<String, List<Destination>> loadDestinationLists() throws IOException {
         Path configFile = getDestinationListsConfigPath();
-        if (!Files.exists(configFile)) {
-            return new HashMap<>();
-        }
 
         TypeFactory typeFactory = objectMapper.getTypeFactory();
         CollectionType listType = typeFactory.constructCollectionType(List.class, Destination.class);
         MapType mapType = typeFactory.constructMapType(HashMap.class, typeFactory.constructType(String.class), listType);
 
-        return objectMapper.readValue(configFile.toFile(), mapType);
+        return configurationStore.read(configFile, mapType, HashMap::new);
     }
 
     public void saveDestinationLists(Map<String, List<Destination>> lists) throws IOException {
         Path configFile = getDestinationListsConfigPath();
-        Files.createDirectories(configFile.getParent());
-        objectMapper.writerWithDefaultPrettyPrinter().writeValue(configFile.toFile(), lists);
+        configurationStore.write(configFile, lists);
     }
 
     private Path getDestinationListsConfigPath() {
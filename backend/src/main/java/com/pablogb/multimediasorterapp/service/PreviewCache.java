@@ -0,0 +1,145 @@
+package com.pablogb.multimediasorterapp.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-capped disk cache for generated previews under ~/.imagesorter/cache.
+ * Entries are keyed by source path + mtime, so an edited file gets a new
+ * entry and the old one eventually ages out. Reading an entry bumps its
+ * mtime, and the least recently used entries are evicted once the cache
+ * grows past its limit.
+ */
+@Component
+public class PreviewCache {
+
+    private final Path cacheDir;
+    private final long maxBytes;
+    private final AtomicLong currentBytes = new AtomicLong(-1);
+
+    public PreviewCache(@Value("${sorter.preview-cache.max-size-mb:1024}") long maxSizeMb) {
+        this.cacheDir = Paths.get(System.getProperty("user.home"), ".imagesorter", "cache");
+        this.maxBytes = maxSizeMb * 1024 * 1024;
+    }
+
+    /**
+     * Builds a cache key for a derived version of a source file. The variant
+     * describes what was generated from it, e.g. "poster" or "strip-10".
+     */
+    public String key(Path source, String variant) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(source, BasicFileAttributes.class);
+        String raw = source.toAbsolutePath() + "|" + attrs.lastModifiedTime().toMillis() + "|"
+                + attrs.size() + "|" + variant;
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(raw.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Returns the cached file for a key, or null if it hasn't been generated.
+     */
+    public Path get(String key, String extension) {
+        Path file = cacheDir.resolve(key + extension);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Only affects eviction order
+        }
+        return file;
+    }
+
+    /**
+     * Reserves a temp file in the cache directory for a generator to write to.
+     * Pass it to {@link #commit} once it's complete.
+     */
+    public Path newTempFile(String extension) throws IOException {
+        Files.createDirectories(cacheDir);
+        return Files.createTempFile(cacheDir, "tmp-", extension);
+    }
+
+    public Path commit(String key, String extension, Path tempFile) throws IOException {
+        Path file = cacheDir.resolve(key + extension);
+        try {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        if (currentBytes.get() < 0) {
+            currentBytes.set(scanSize());
+        } else {
+            currentBytes.addAndGet(Files.size(file));
+        }
+        if (currentBytes.get() > maxBytes) {
+            evict(file);
+        }
+        return file;
+    }
+
+    private synchronized void evict(Path keep) throws IOException {
+        List<Path> entries = new ArrayList<>();
+        try (java.util.stream.Stream<Path> files = Files.list(cacheDir)) {
+            files.filter(p -> !p.getFileName().toString().startsWith("tmp-")).forEach(entries::add);
+        }
+        entries.sort(Comparator.comparing(this::lastModified));
+
+        long total = 0;
+        for (Path entry : entries) {
+            total += sizeOf(entry);
+        }
+        // Leave some headroom so we don't evict on every single write
+        long target = maxBytes * 9 / 10;
+        for (Path entry : entries) {
+            if (total <= target) {
+                break;
+            }
+            if (!entry.equals(keep)) {
+                long size = sizeOf(entry);
+                Files.deleteIfExists(entry);
+                total -= size;
+            }
+        }
+        currentBytes.set(total);
+    }
+
+    private long scanSize() throws IOException {
+        try (java.util.stream.Stream<Path> files = Files.list(cacheDir)) {
+            return files.mapToLong(this::sizeOf).sum();
+        }
+    }
+
+    private long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
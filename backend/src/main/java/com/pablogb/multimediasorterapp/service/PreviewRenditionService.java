@@ -0,0 +1,221 @@
+package com.pablogb.multimediasorterapp.service;
+
+import com.github.kokorin.jaffree.StreamType;
+import com.github.kokorin.jaffree.ffmpeg.FFmpeg;
+import com.github.kokorin.jaffree.ffmpeg.UrlInput;
+import com.github.kokorin.jaffree.ffmpeg.UrlOutput;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * Browser friendly stand-ins for files that are too heavy or can't be shown
+ * directly: TIFF/BMP and very large images become bounded-size JPEGs, and
+ * MKV/AVI/WMV/FLV become low-bitrate MP4 proxies. Renditions are produced in
+ * the background and kept in the {@link PreviewCache}; until one is ready the
+ * original is served. The queue is bounded and conversions that haven't
+ * been requested again for a minute are dropped before they start.
+ */
+@Service
+public class PreviewRenditionService {
+
+    private static final Set<String> CONVERTED_IMAGE_EXTENSIONS = Set.of(".tiff", ".tif", ".bmp");
+    private static final Set<String> LARGE_IMAGE_EXTENSIONS = Set.of(".png", ".jpg", ".jpeg", ".webp");
+    private static final Set<String> CONVERTED_VIDEO_EXTENSIONS = Set.of(".mkv", ".avi", ".wmv", ".flv");
+    private static final int MAX_QUEUED_CONVERSIONS = 16;
+    private static final long STALE_REQUEST_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final int maxImageDimension;
+    private final long largeImageBytes;
+    private final ExecutorService workers;
+    private final Map<String, Job> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    private PreviewCache previewCache;
+
+    public PreviewRenditionService(@Value("${sorter.preview.max-image-dimension:2048}") int maxImageDimension,
+                                   @Value("${sorter.preview.large-image-mb:15}") long largeImageMb,
+                                   @Value("${sorter.preview.workers:1}") int workerCount) {
+        this.maxImageDimension = maxImageDimension;
+        this.largeImageBytes = largeImageMb * 1024 * 1024;
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED_CONVERSIONS), r -> {
+                    Thread thread = new Thread(r, "preview-rendition");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+    }
+
+    /**
+     * Returns the rendition to serve instead of the given file, or null if
+     * the original should be served. When a rendition is needed but not
+     * ready yet, its conversion is queued and null is returned.
+     */
+    public Path getRendition(Path file) throws IOException {
+        String extension = getExtension(file);
+        if (CONVERTED_VIDEO_EXTENSIONS.contains(extension)) {
+            return getOrSchedule(file, ".mp4", target -> transcodeVideo(file, target));
+        }
+        if (CONVERTED_IMAGE_EXTENSIONS.contains(extension)
+                || (LARGE_IMAGE_EXTENSIONS.contains(extension) && Files.size(file) > largeImageBytes)) {
+            return getOrSchedule(file, ".jpg", target -> downscaleImage(file, target));
+        }
+        return null;
+    }
+
+    private Path getOrSchedule(Path file, String renditionExtension, Conversion conversion) throws IOException {
+        String key = previewCache.key(file, "rendition");
+        Path cached = previewCache.get(key, renditionExtension);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Only one conversion per file, however many times it's requested meanwhile
+        Job job = new Job();
+        Job existing = inFlight.putIfAbsent(key, job);
+        if (existing != null) {
+            existing.lastRequested = System.currentTimeMillis();
+            return null;
+        }
+
+        try {
+            workers.execute(() -> convert(key, file, renditionExtension, conversion, job));
+        } catch (RejectedExecutionException e) {
+            // Queue is full, keep serving the original and try again on a later request
+            inFlight.remove(key, job);
+        }
+        return null;
+    }
+
+    private void convert(String key, Path file, String renditionExtension, Conversion conversion, Job job) {
+        Path temp = null;
+        try {
+            // Skip files nobody has asked for since they were queued, e.g. while browsing quickly
+            if (System.currentTimeMillis() - job.lastRequested > STALE_REQUEST_MILLIS) {
+                return;
+            }
+            // An earlier job may have committed it between the cache check and queueing this one
+            if (previewCache.get(key, renditionExtension) != null) {
+                return;
+            }
+
+            temp = previewCache.newTempFile(renditionExtension);
+            conversion.writeTo(temp);
+            previewCache.commit(key, renditionExtension, temp);
+        } catch (Throwable e) {
+            System.err.println("Could not create preview for " + file + ": " + e.getMessage());
+        } finally {
+            inFlight.remove(key, job);
+            deleteQuietly(temp);
+        }
+    }
+
+    private void downscaleImage(Path source, Path target) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            if (input == null) {
+                throw new IOException("Cannot open image");
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("No image reader for " + source.getFileName());
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+
+                // Subsample while decoding so huge images never get fully loaded in memory
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.max(width, height) / (maxImageDimension * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage decoded = reader.read(0, param);
+
+                double scale = Math.min(1.0, (double) maxImageDimension / Math.max(decoded.getWidth(), decoded.getHeight()));
+                int targetWidth = Math.max(1, (int) Math.round(decoded.getWidth() * scale));
+                int targetHeight = Math.max(1, (int) Math.round(decoded.getHeight() * scale));
+
+                BufferedImage scaled = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = scaled.createGraphics();
+                try {
+                    g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                    // JPEG has no alpha, flatten transparent images onto white
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, targetWidth, targetHeight);
+                    g.drawImage(decoded, 0, 0, targetWidth, targetHeight, null);
+                } finally {
+                    g.dispose();
+                }
+
+                if (!ImageIO.write(scaled, "jpg", target.toFile())) {
+                    throw new IOException("No JPEG writer available");
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void transcodeVideo(Path source, Path target) {
+        FFmpeg.atPath()
+                .addInput(UrlInput.fromPath(source))
+                .setFilter(StreamType.VIDEO, "scale=-2:'min(720,ih)'")
+                .addOutput(UrlOutput.toPath(target)
+                        .setFormat("mp4")
+                        .setCodec(StreamType.VIDEO, "libx264")
+                        .setCodec(StreamType.AUDIO, "aac")
+                        .addArguments("-preset", "veryfast")
+                        .addArguments("-crf", "28")
+                        .addArguments("-b:a", "96k")
+                        .addArguments("-movflags", "+faststart"))
+                .setOverwriteOutput(true)
+                .execute();
+    }
+
+    private String getExtension(Path file) {
+        String fileName = file.getFileName().toString().toLowerCase();
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? "" : fileName.substring(dot);
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Leftover temp files are ignored by the cache
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private static class Job {
+        private volatile long lastRequested = System.currentTimeMillis();
+    }
+
+    private interface Conversion {
+        void writeTo(Path target) throws Exception;
+    }
+}
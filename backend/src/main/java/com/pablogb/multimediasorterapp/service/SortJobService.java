@@ -0,0 +1,284 @@
+package com.pablogb.multimediasorterapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pablogb.multimediasorterapp.model.Destination;
+import com.pablogb.multimediasorterapp.model.SortErrorPage;
+import com.pablogb.multimediasorterapp.model.SortFileResult;
+import com.pablogb.multimediasorterapp.model.SortPlan;
+import com.pablogb.multimediasorterapp.model.SortRequest;
+import com.pablogb.multimediasorterapp.model.SortResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Sorts that are submitted in batches. A job only keeps its destinations and
+ * running counters in memory; per-file errors are appended to a file under
+ * ~/.imagesorter/sort-jobs and read back a page at a time. Jobs that
+ * haven't been touched for a day are removed in the background, and error
+ * files left behind by a previous run are removed on startup.
+ */
+@Service
+public class SortJobService {
+
+    private static final long JOB_EXPIRY_MILLIS = TimeUnit.HOURS.toMillis(24);
+    private static final long SWEEP_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final int MAX_ERROR_PAGE_SIZE = 1000;
+    private static final String ERROR_FILE_SUFFIX = "-errors.jsonl";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, SortJob> jobs = new ConcurrentHashMap<>();
+    private final MultimediaSorterService sorterService;
+    private final SortPlanService sortPlanService;
+    private final Path jobsDir;
+    private final long jobExpiryMillis;
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "sort-job-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public SortJobService(MultimediaSorterService sorterService, SortPlanService sortPlanService) {
+        this(sorterService, sortPlanService,
+                Paths.get(System.getProperty("user.home"), ".imagesorter", "sort-jobs"), JOB_EXPIRY_MILLIS);
+    }
+
+    SortJobService(MultimediaSorterService sorterService, SortPlanService sortPlanService,
+                   Path jobsDir, long jobExpiryMillis) {
+        this.sorterService = sorterService;
+        this.sortPlanService = sortPlanService;
+        this.jobsDir = jobsDir;
+        this.jobExpiryMillis = jobExpiryMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        removeOrphanedErrorFiles();
+        sweeper.scheduleWithFixedDelay(this::removeExpiredJobs,
+                SWEEP_INTERVAL_MILLIS, SWEEP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sweeper.shutdownNow();
+    }
+
+    public SortResult createJob(SortRequest request) throws IOException {
+        SortJob job = new SortJob(UUID.randomUUID().toString(), request.getDestinations());
+        jobs.put(job.id, job);
+
+        // Classifications sent along with the job are treated as its first batch
+        if (request.getClassifications() != null && !request.getClassifications().isEmpty()) {
+            try {
+                return processBatch(job.id, request.getClassifications());
+            } catch (IOException | RuntimeException e) {
+                deleteJob(job.id);
+                throw e;
+            }
+        }
+        return job.toResult(Collections.emptyList());
+    }
+
+    /**
+     * Adds a batch to the job's plan without copying anything and returns
+     * the plan for everything staged so far. Once a job has been planned,
+     * its first copied batch is refused unless the whole plan still fits.
+     */
+    public SortPlan planBatch(String jobId, Map<String, String> classifications) throws IOException {
+        SortJob job = getJob(jobId);
+        synchronized (job) {
+            if (job.started) {
+                throw new IOException("Sort job " + jobId + " has already started copying");
+            }
+            if (job.planTotals == null) {
+                job.planTotals = new SortPlanService.PlanTotals();
+            }
+        }
+        sortPlanService.addToTotals(job.planTotals, job.newBatch(classifications));
+        return sortPlanService.summarize(job.planTotals);
+    }
+
+    public SortResult processBatch(String jobId, Map<String, String> classifications) throws IOException {
+        SortJob job = getJob(jobId);
+        List<SortFileResult> results = new ArrayList<>(classifications.size());
+        List<SortFileResult> errors = new ArrayList<>();
+
+        synchronized (job) {
+            if (!job.started && job.planTotals != null) {
+                // Checked once up front: later batches would see the space already taken by earlier ones
+                sortPlanService.checkSpace(sortPlanService.summarize(job.planTotals));
+            }
+            job.started = true;
+        }
+
+        SortPlanService.PlannedSort planned = sortPlanService.plan(job.newBatch(classifications));
+        sortPlanService.checkSpace(planned.getPlan());
+
+        for (Map.Entry<String, String> entry : planned.getOrderedClassifications().entrySet()) {
+            SortFileResult result = sorterService.sortFile(entry.getKey(), entry.getValue(), job.destinationPaths);
+            job.record(result);
+            results.add(result);
+            if (SortFileResult.FAILED.equals(result.getStatus())) {
+                errors.add(result);
+            }
+        }
+        job.appendErrors(errors);
+        return job.toResult(results);
+    }
+
+    public SortResult getStatus(String jobId) throws IOException {
+        return getJob(jobId).toResult(null);
+    }
+
+    public SortErrorPage getErrors(String jobId, int offset, int limit) throws IOException {
+        SortJob job = getJob(jobId);
+        int pageSize = Math.max(0, Math.min(limit, MAX_ERROR_PAGE_SIZE));
+
+        synchronized (job) {
+            if (!Files.exists(job.errorFile)) {
+                return new SortErrorPage(Collections.emptyList(), offset, job.failed);
+            }
+            try (java.util.stream.Stream<String> lines = Files.lines(job.errorFile, StandardCharsets.UTF_8)) {
+                List<SortFileResult> errors = lines
+                        .skip(Math.max(0, offset))
+                        .limit(pageSize)
+                        .map(this::readError)
+                        .collect(Collectors.toList());
+                return new SortErrorPage(errors, offset, job.failed);
+            }
+        }
+    }
+
+    public void deleteJob(String jobId) throws IOException {
+        SortJob job = jobs.remove(jobId);
+        if (job != null) {
+            job.close();
+        }
+    }
+
+    private SortJob getJob(String jobId) throws IOException {
+        SortJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new IOException("Sort job not found: " + jobId);
+        }
+        job.lastAccess = System.currentTimeMillis();
+        return job;
+    }
+
+    void removeExpiredJobs() {
+        long cutoff = System.currentTimeMillis() - jobExpiryMillis;
+        for (SortJob job : new ArrayList<>(jobs.values())) {
+            if (job.lastAccess < cutoff) {
+                try {
+                    deleteJob(job.id);
+                } catch (IOException e) {
+                    System.err.println("Could not clean up sort job " + job.id + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private SortFileResult readError(String line) {
+        try {
+            return objectMapper.readValue(line, SortFileResult.class);
+        } catch (IOException e) {
+            return SortFileResult.failed(null, line);
+        }
+    }
+
+    private void removeOrphanedErrorFiles() {
+        // Jobs only live in memory, so any error file already on disk belongs to a previous run
+        if (!Files.isDirectory(jobsDir)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(jobsDir, "*" + ERROR_FILE_SUFFIX)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not clean up " + jobsDir + ": " + e.getMessage());
+        }
+    }
+
+    private class SortJob {
+        private final String id;
+        private final List<Destination> destinations;
+        private final Map<String, String> destinationPaths;
+        private final Path errorFile;
+        private volatile long lastAccess = System.currentTimeMillis();
+        private SortPlanService.PlanTotals planTotals;
+        private boolean started;
+        private int copied;
+        private int skipped;
+        private int failed;
+
+        SortJob(String id, List<Destination> destinations) throws IOException {
+            this.id = id;
+            this.destinations = destinations;
+            this.destinationPaths = MultimediaSorterService.destinationPathsByName(destinations);
+            this.errorFile = jobsDir.resolve(id + ERROR_FILE_SUFFIX);
+        }
+
+        SortRequest newBatch(Map<String, String> classifications) {
+            SortRequest batch = new SortRequest();
+            batch.setDestinations(destinations);
+            batch.setClassifications(classifications);
+            return batch;
+        }
+
+        synchronized void record(SortFileResult result) {
+            if (SortFileResult.COPIED.equals(result.getStatus())) {
+                copied++;
+            } else if (SortFileResult.SKIPPED.equals(result.getStatus())) {
+                skipped++;
+            } else {
+                failed++;
+            }
+        }
+
+        // Opened per batch so an abandoned job doesn't hold a file handle
+        synchronized void appendErrors(List<SortFileResult> errors) throws IOException {
+            if (errors.isEmpty()) {
+                return;
+            }
+            Files.createDirectories(errorFile.getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(errorFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (SortFileResult error : errors) {
+                    writer.write(objectMapper.writeValueAsString(error));
+                    writer.newLine();
+                }
+            }
+        }
+
+        synchronized SortResult toResult(List<SortFileResult> results) {
+            String message = String.format("Copied: %d, Skipped (duplicates): %d, Failed: %d",
+                    copied, skipped, failed);
+            SortResult result = new SortResult(failed == 0, message, copied, skipped, failed);
+            result.setJobId(id);
+            result.setResults(results);
+            return result;
+        }
+
+        synchronized void close() throws IOException {
+            Files.deleteIfExists(errorFile);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.pablogb.multimediasorterapp.service;
+
+import com.fasterxml.jackson.databind.type.MapType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.pablogb.multimediasorterapp.model.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Works out what a sort will need before anything is copied: bytes per
+ * destination device against its usable space, and an order that handles
+ * one source/destination device pair at a time, walking each source
+ * directory sequentially. Copy throughput is measured per device pair
+ * while sorting and kept in ~/.imagesorter/throughput.json, so a dry run
+ * right after a restart can still estimate how long a plan will take.
+ */
+@Service
+public class SortPlanService {
+
+    private static final int MAX_PROBLEMS = 100;
+    private static final int MAX_CACHED_STORES = 1024;
+    private static final double THROUGHPUT_SMOOTHING = 0.2;
+    private static final String ALL_DEVICES = "*";
+
+    private final Map<Path, FileStore> storesByDirectory = new ConcurrentHashMap<>();
+    private final Map<String, Double> bytesPerSecond = new ConcurrentHashMap<>();
+    private final ConfigurationStore configurationStore;
+    private final Path throughputFile;
+
+    @Autowired
+    public SortPlanService(ConfigurationStore configurationStore) {
+        this(configurationStore, Paths.get(System.getProperty("user.home"), ".imagesorter", "throughput.json"));
+    }
+
+    SortPlanService(ConfigurationStore configurationStore, Path throughputFile) {
+        this.configurationStore = configurationStore;
+        this.throughputFile = throughputFile;
+        try {
+            MapType type = TypeFactory.defaultInstance().constructMapType(HashMap.class, String.class, Double.class);
+            bytesPerSecond.putAll(configurationStore.<Map<String, Double>>read(throughputFile, type, HashMap::new));
+        } catch (IOException e) {
+            System.err.println("Could not load copy throughput, estimates start over: " + e.getMessage());
+        }
+    }
+
+    public PlannedSort plan(SortRequest request) throws IOException {
+        PlanTotals totals = new PlanTotals();
+        Map<String, String> unplanned = new LinkedHashMap<>();
+        Map<String, List<PlanItem>> groups = new TreeMap<>();
+
+        for (PlanItem item : resolve(request, totals, unplanned)) {
+            groups.computeIfAbsent(pairKey(item.sourceStore, item.destStore), k -> new ArrayList<>()).add(item);
+        }
+
+        Map<String, String> ordered = new LinkedHashMap<>();
+        for (List<PlanItem> items : groups.values()) {
+            // Sequential walk of each source directory keeps the heads moving forward on spinning disks
+            items.sort(Comparator.comparing((PlanItem i) -> i.source));
+            for (PlanItem item : items) {
+                ordered.put(item.source, item.destination);
+            }
+        }
+
+        // Entries that will fail anyway go last so they get reported the usual way
+        ordered.putAll(unplanned);
+
+        return new PlannedSort(summarize(totals), ordered);
+    }
+
+    /**
+     * Adds a batch to running totals without keeping anything per file, so
+     * a sort submitted in batches can be checked as a whole before any of
+     * it is copied.
+     */
+    public void addToTotals(PlanTotals totals, SortRequest batch) throws IOException {
+        resolve(batch, totals, null);
+    }
+
+    public SortPlan summarize(PlanTotals totals) throws IOException {
+        synchronized (totals) {
+            boolean feasible = true;
+            List<DestinationSpace> spaces = new ArrayList<>();
+            for (Map.Entry<FileStore, long[]> entry : totals.required.entrySet()) {
+                long needed = entry.getValue()[0] + entry.getValue()[1];
+                DestinationSpace space = new DestinationSpace(entry.getKey().toString(), needed,
+                        entry.getKey().getUsableSpace());
+                feasible &= space.isFits();
+                spaces.add(space);
+            }
+
+            List<SortPlanGroup> groups = new ArrayList<>();
+            Double totalSeconds = 0.0;
+            for (Map.Entry<String, GroupTotals> entry : totals.groups.entrySet()) {
+                GroupTotals group = entry.getValue();
+                Double seconds = estimateSeconds(entry.getKey(), group.bytes);
+                totalSeconds = seconds == null || totalSeconds == null ? null : totalSeconds + seconds;
+                groups.add(new SortPlanGroup(group.sourceStore, group.destStore, group.files, group.bytes, seconds));
+            }
+
+            SortPlan plan = new SortPlan();
+            plan.setFeasible(feasible);
+            plan.setFileCount(totals.fileCount);
+            plan.setTotalBytes(totals.totalBytes);
+            plan.setEstimatedSeconds(totals.fileCount == 0 ? Double.valueOf(0) : totalSeconds);
+            plan.setDestinations(spaces);
+            plan.setGroups(groups);
+            plan.setProblems(new ArrayList<>(totals.problems));
+            return plan;
+        }
+    }
+
+    private List<PlanItem> resolve(SortRequest request, PlanTotals totals, Map<String, String> unplanned) throws IOException {
+        Map<String, String> destinationPaths = MultimediaSorterService.destinationPathsByName(request.getDestinations());
+
+        List<PlanItem> items = new ArrayList<>();
+        for (Map.Entry<String, String> entry : request.getClassifications().entrySet()) {
+            String destPath = destinationPaths.get(entry.getValue());
+            if (destPath == null) {
+                totals.addProblem("Destination folder not found: " + entry.getValue());
+                if (unplanned != null) {
+                    unplanned.put(entry.getKey(), entry.getValue());
+                }
+                continue;
+            }
+
+            Path source = Paths.get(entry.getKey());
+            long size;
+            try {
+                size = Files.readAttributes(source, BasicFileAttributes.class).size();
+            } catch (IOException e) {
+                totals.addProblem("Source not readable: " + entry.getKey());
+                if (unplanned != null) {
+                    unplanned.put(entry.getKey(), entry.getValue());
+                }
+                continue;
+            }
+
+            FileStore sourceStore = getFileStore(source.toAbsolutePath().getParent());
+            FileStore destStore = getFileStore(Paths.get(destPath));
+            PlanItem item = new PlanItem(entry.getKey(), entry.getValue(), size, sourceStore, destStore);
+            totals.add(item, pairKey(sourceStore, destStore));
+            items.add(item);
+        }
+        return items;
+    }
+
+    /**
+     * Fails with a readable message when a destination device can't hold
+     * what's about to be copied onto it.
+     */
+    public void checkSpace(SortPlan plan) throws IOException {
+        for (DestinationSpace space : plan.getDestinations()) {
+            if (!space.isFits()) {
+                throw new IOException(String.format("Not enough space on %s: %d MB needed, %d MB available",
+                        space.getFileStore(), space.getRequiredBytes() / (1024 * 1024),
+                        space.getUsableBytes() / (1024 * 1024)));
+            }
+        }
+    }
+
+    /**
+     * Feeds a finished copy (including verification) into the throughput
+     * estimate for its device pair.
+     */
+    public void recordCopy(Path source, Path destDir, long bytes, long nanos) {
+        if (bytes <= 0 || nanos <= 0) {
+            return;
+        }
+        try {
+            String key = pairKey(getFileStore(source.toAbsolutePath().getParent()), getFileStore(destDir));
+            double measured = bytes / (nanos / 1_000_000_000.0);
+            bytesPerSecond.merge(key, measured, this::smooth);
+            bytesPerSecond.merge(ALL_DEVICES, measured, this::smooth);
+            configurationStore.write(throughputFile, new HashMap<>(bytesPerSecond));
+        } catch (IOException e) {
+            // Estimates only
+        }
+    }
+
+    public FileStore getFileStore(Path directory) throws IOException {
+        // Destinations may not exist yet, they'll be created on the nearest existing ancestor's device
+        Path existing = directory.toAbsolutePath();
+        while (existing != null && !Files.exists(existing)) {
+            existing = existing.getParent();
+        }
+        if (existing == null) {
+            throw new IOException("No existing parent for " + directory);
+        }
+
+        FileStore store = storesByDirectory.get(existing);
+        if (store == null) {
+            if (storesByDirectory.size() > MAX_CACHED_STORES) {
+                storesByDirectory.clear();
+            }
+            store = Files.getFileStore(existing);
+            storesByDirectory.put(existing, store);
+        }
+        return store;
+    }
+
+    private Double estimateSeconds(String pairKey, long bytes) {
+        Double rate = bytesPerSecond.getOrDefault(pairKey, bytesPerSecond.get(ALL_DEVICES));
+        return rate == null ? null : bytes / rate;
+    }
+
+    private double smooth(double previous, double measured) {
+        return previous + THROUGHPUT_SMOOTHING * (measured - previous);
+    }
+
+    private String pairKey(FileStore source, FileStore dest) {
+        return source + " -> " + dest;
+    }
+
+    public static class PlannedSort {
+        private final SortPlan plan;
+        private final Map<String, String> orderedClassifications;
+
+        PlannedSort(SortPlan plan, Map<String, String> orderedClassifications) {
+            this.plan = plan;
+            this.orderedClassifications = orderedClassifications;
+        }
+
+        public SortPlan getPlan() { return plan; }
+
+        public Map<String, String> getOrderedClassifications() { return orderedClassifications; }
+    }
+
+    /**
+     * Running totals of a plan: bytes needed per destination device and
+     * per device pair. Its size depends on the number of devices, not files.
+     */
+    public static class PlanTotals {
+        private final Map<FileStore, long[]> required = new LinkedHashMap<>(); // {bytes from other devices, largest same-device file}
+        private final Map<String, GroupTotals> groups = new TreeMap<>();
+        private final List<String> problems = new ArrayList<>();
+        private int fileCount;
+        private long totalBytes;
+
+        private synchronized void add(PlanItem item, String pairKey) {
+            long[] need = required.computeIfAbsent(item.destStore, s -> new long[2]);
+            if (item.sourceStore.equals(item.destStore)) {
+                // Each file is deleted right after it's verified, so a same-device move only needs room for one file
+                need[1] = Math.max(need[1], item.size);
+            } else {
+                need[0] += item.size;
+            }
+
+            GroupTotals group = groups.computeIfAbsent(pairKey,
+                    k -> new GroupTotals(item.sourceStore.toString(), item.destStore.toString()));
+            group.files++;
+            group.bytes += item.size;
+            fileCount++;
+            totalBytes += item.size;
+        }
+
+        private synchronized void addProblem(String problem) {
+            if (problems.size() < MAX_PROBLEMS) {
+                problems.add(problem);
+            }
+        }
+    }
+
+    private static class GroupTotals {
+        private final String sourceStore;
+        private final String destStore;
+        private int files;
+        private long bytes;
+
+        GroupTotals(String sourceStore, String destStore) {
+            this.sourceStore = sourceStore;
+            this.destStore = destStore;
+        }
+    }
+
+    private static class PlanItem {
+        private final String source;
+        private final String destination;
+        private final long size;
+        private final FileStore sourceStore;
+        private final FileStore destStore;
+
+        PlanItem(String source, String destination, long size, FileStore sourceStore, FileStore destStore) {
+            this.source = source;
+            this.destination = destination;
+            this.size = size;
+            this.sourceStore = sourceStore;
+            this.destStore = destStore;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.pablogb.multimediasorterapp.service;
+
+import com.github.kokorin.jaffree.StreamType;
+import com.github.kokorin.jaffree.ffmpeg.FFmpeg;
+import com.github.kokorin.jaffree.ffmpeg.UrlInput;
+import com.github.kokorin.jaffree.ffmpeg.UrlOutput;
+import com.pablogb.multimediasorterapp.model.MultimediaMetadata;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Poster frames and scrub strips for videos, so they can be previewed
+ * without streaming the whole file. Frames are grabbed with FFmpeg using
+ * input seeking, on a small worker pool, and the results are kept in the
+ * {@link PreviewCache}.
+ */
+@Service
+public class VideoPreviewService {
+
+    private static final int POSTER_WIDTH = 640;
+    private static final int STRIP_FRAME_WIDTH = 160;
+    private static final int MAX_STRIP_FRAMES = 30;
+    private static final long GENERATION_TIMEOUT_SECONDS = 120;
+
+    private final ExecutorService workers;
+    private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    private PreviewCache previewCache;
+
+    @Autowired
+    private MultimediaSorterService sorterService;
+
+    public VideoPreviewService(@Value("${sorter.video-preview.workers:2}") int workerCount) {
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(64), r -> {
+                    Thread thread = new Thread(r, "video-preview");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public Path getPoster(String filePath) throws IOException {
+        Path video = requireVideo(filePath);
+        String key = previewCache.key(video, "poster");
+        return getOrGenerate(key, () -> {
+            Float duration = getDuration(video);
+            double position = duration != null ? duration * 0.1 : 0;
+            BufferedImage frame = extractFrame(video, position, POSTER_WIDTH);
+            if (frame == null) {
+                throw new IOException("Could not extract a frame from " + video.getFileName());
+            }
+            return frame;
+        });
+    }
+
+    /**
+     * A single JPEG with the frames laid out left to right, each
+     * {@value #STRIP_FRAME_WIDTH}px wide.
+     */
+    public Path getStrip(String filePath, int frames) throws IOException {
+        Path video = requireVideo(filePath);
+        int frameCount = Math.max(1, Math.min(frames, MAX_STRIP_FRAMES));
+        String key = previewCache.key(video, "strip-" + frameCount);
+        return getOrGenerate(key, () -> buildStrip(video, frameCount));
+    }
+
+    private Path getOrGenerate(String key, FrameSource source) throws IOException {
+        Path cached = previewCache.get(key, ".jpg");
+        if (cached != null) {
+            return cached;
+        }
+
+        // Requests for the same preview share a single FFmpeg run
+        CompletableFuture<Path> future = inFlight.computeIfAbsent(key, k -> {
+            CompletableFuture<Path> task = new CompletableFuture<>();
+            try {
+                workers.execute(() -> {
+                    try {
+                        task.complete(writeJpeg(k, source.get()));
+                    } catch (Throwable e) {
+                        task.completeExceptionally(e);
+                    } finally {
+                        inFlight.remove(k, task);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                task.completeExceptionally(new IOException("Too many previews being generated, try again later"));
+            }
+            return task;
+        });
+        if (future.isCompletedExceptionally()) {
+            inFlight.remove(key, future);
+        }
+
+        try {
+            return future.get(GENERATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while generating preview");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause.getMessage(), cause);
+        } catch (TimeoutException e) {
+            throw new IOException("Timed out generating preview");
+        }
+    }
+
+    private BufferedImage buildStrip(Path video, int frameCount) throws IOException {
+        Float duration = getDuration(video);
+        BufferedImage[] frames = new BufferedImage[frameCount];
+        int height = 0;
+
+        for (int i = 0; i < frameCount; i++) {
+            // Sample the middle of each segment so we skip black first/last frames
+            double position = duration != null ? duration * (i + 0.5) / frameCount : 0;
+            try {
+                frames[i] = extractFrame(video, position, STRIP_FRAME_WIDTH);
+            } catch (Exception e) {
+                System.err.println("Could not extract frame " + i + " of " + video + ": " + e.getMessage());
+            }
+            if (frames[i] != null) {
+                height = Math.max(height, frames[i].getHeight());
+            }
+        }
+        if (height == 0) {
+            throw new IOException("Could not extract any frames from " + video.getFileName());
+        }
+
+        BufferedImage strip = new BufferedImage(STRIP_FRAME_WIDTH * frameCount, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = strip.createGraphics();
+        try {
+            for (int i = 0; i < frameCount; i++) {
+                if (frames[i] != null) {
+                    g.drawImage(frames[i], i * STRIP_FRAME_WIDTH, (height - frames[i].getHeight()) / 2, null);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+        return strip;
+    }
+
+    private BufferedImage extractFrame(Path video, double seconds, int width) throws IOException {
+        Path frame = Files.createTempFile("frame-", ".jpg");
+        try {
+            FFmpeg.atPath()
+                    .addInput(UrlInput.fromPath(video).setPosition((long) (seconds * 1000)))
+                    .setFilter(StreamType.VIDEO, "scale=" + width + ":-2")
+                    .addOutput(UrlOutput.toPath(frame).setFrameCount(StreamType.VIDEO, 1L))
+                    .setOverwriteOutput(true)
+                    .execute();
+            return ImageIO.read(frame.toFile());
+        } finally {
+            Files.deleteIfExists(frame);
+        }
+    }
+
+    private Path writeJpeg(String key, BufferedImage image) throws IOException {
+        Path temp = previewCache.newTempFile(".jpg");
+        try {
+            if (!ImageIO.write(image, "jpg", temp.toFile())) {
+                throw new IOException("No JPEG writer available");
+            }
+            return previewCache.commit(key, ".jpg", temp);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Float getDuration(Path video) throws IOException {
+        MultimediaMetadata metadata = sorterService.getMediaMetadata(video.toString());
+        return metadata.getDuration();
+    }
+
+    private Path requireVideo(String filePath) throws IOException {
+        Path path = Paths.get(filePath);
+        if (!Files.exists(path)) {
+            throw new IOException("File not found");
+        }
+        if (!sorterService.isVideoFile(path)) {
+            throw new IOException("Not a video file");
+        }
+        return path;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private interface FrameSource {
+        BufferedImage get() throws IOException;
+    }
+}
@@ -0,0 +1,91 @@
+package com.pablogb.multimediasorterapp.controller;
+
+import com.pablogb.multimediasorterapp.service.ConfigurationStore;
+import com.pablogb.multimediasorterapp.service.IoThrottle;
+import com.pablogb.multimediasorterapp.service.MultimediaSorterService;
+import com.pablogb.multimediasorterapp.service.SortPlanService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PreviewPriorityInterceptorTests {
+
+    @TempDir
+    Path dir;
+
+    private IoThrottle ioThrottle;
+    private PreviewPriorityInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        ConfigurationStore store = new ConfigurationStore();
+        ioThrottle = new IoThrottle(0, 0, true, 250, new SortPlanService(store));
+        interceptor = new PreviewPriorityInterceptor(ioThrottle, new MultimediaSorterService());
+    }
+
+    @Test
+    void mediaImageIsActiveAndFeedsLatency() throws IOException {
+        MockHttpServletRequest request = request("/api/media", "/photos/a.jpg");
+
+        interceptor.preHandle(request, new MockHttpServletResponse(), null);
+        assertThat(sortWaitMillis()).isGreaterThanOrEqualTo(150);
+        interceptor.afterCompletion(request, response("image/jpeg"), null, null);
+
+        assertThat(ioThrottle.getSettings().getPreviewLatencyMillis()).isNotNull();
+        assertThat(sortWaitMillis()).isLessThan(100);
+    }
+
+    @Test
+    void posterIsActiveButDoesNotFeedLatency() throws IOException {
+        MockHttpServletRequest request = request("/api/video-poster", "/videos/clip.mp4");
+
+        interceptor.preHandle(request, new MockHttpServletResponse(), null);
+        assertThat(sortWaitMillis()).isGreaterThanOrEqualTo(150);
+        interceptor.afterCompletion(request, response("image/jpeg"), null, null);
+
+        assertThat(ioThrottle.getSettings().getPreviewLatencyMillis()).isNull();
+        assertThat(sortWaitMillis()).isLessThan(100);
+    }
+
+    @Test
+    void streamedVideoIsNotActive() throws IOException {
+        MockHttpServletRequest video = request("/api/media", "/videos/clip.mkv");
+        MockHttpServletRequest range = request("/api/media", "/photos/a.jpg");
+        range.addHeader(HttpHeaders.RANGE, "bytes=0-");
+
+        interceptor.preHandle(video, new MockHttpServletResponse(), null);
+        interceptor.preHandle(range, new MockHttpServletResponse(), null);
+
+        assertThat(sortWaitMillis()).isLessThan(100);
+        interceptor.afterCompletion(video, response("video/x-matroska"), null, null);
+        interceptor.afterCompletion(range, response("image/jpeg"), null, null);
+        assertThat(ioThrottle.getSettings().getPreviewLatencyMillis()).isNull();
+    }
+
+    private long sortWaitMillis() throws IOException {
+        IoThrottle.Budget budget = ioThrottle.forFile(dir.resolve("a.jpg"));
+        long start = System.nanoTime();
+        budget.acquire(1);
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private MockHttpServletRequest request(String uri, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setParameter("path", path);
+        return request;
+    }
+
+    private MockHttpServletResponse response(String contentType) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setContentType(contentType);
+        return response;
+    }
+}
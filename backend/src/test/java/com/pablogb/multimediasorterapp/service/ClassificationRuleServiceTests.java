@@ -0,0 +1,228 @@
+package com.pablogb.multimediasorterapp.service;
+
+import com.pablogb.multimediasorterapp.model.AutoClassifyRequest;
+import com.pablogb.multimediasorterapp.model.AutoClassifyResult;
+import com.pablogb.multimediasorterapp.model.ClassificationRule;
+import com.pablogb.multimediasorterapp.model.Destination;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClassificationRuleServiceTests {
+
+    // MP4 timestamps count seconds from 1904-01-01 UTC
+    private static final long MP4_EPOCH_OFFSET_SECONDS = 2082844800L;
+
+    @TempDir
+    Path dir;
+
+    private final ClassificationRuleService service = new ClassificationRuleService(2, new MultimediaSorterService());
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void firstMatchingRuleWins() throws IOException {
+        writeImage("a.png", 10, 10);
+
+        AutoClassifyResult result = classify(
+                rule("Pictures", r -> r.setType("image")),
+                rule("Screenshots", r -> r.setExtensions(List.of(".png"))));
+
+        assertThat(result.getClassifications()).containsExactly(Map.entry(path("a.png"), "Pictures"));
+        assertThat(result.getScanned()).isEqualTo(1);
+        assertThat(result.getMatched()).isEqualTo(1);
+    }
+
+    @Test
+    void unmatchedFilesAreLeftOut() throws IOException {
+        writeImage("a.png", 10, 10);
+        Files.write(dir.resolve("clip.mp4"), new byte[] {0});
+
+        AutoClassifyResult result = classify(rule("Videos", r -> r.setType("video")));
+
+        assertThat(result.getClassifications()).containsOnlyKeys(path("clip.mp4"));
+        assertThat(result.getScanned()).isEqualTo(2);
+    }
+
+    @Test
+    void extensionsAreNormalised() throws IOException {
+        writeImage("a.png", 10, 10);
+        writeImage("b.PNG", 10, 10);
+        Files.write(dir.resolve("c.gif"), new byte[] {0});
+
+        AutoClassifyResult result = classify(rule("Png", r -> r.setExtensions(List.of("PNG"))));
+
+        assertThat(result.getClassifications()).containsOnlyKeys(path("a.png"), path("b.PNG"));
+    }
+
+    @Test
+    void filenamePatternIsGlob() throws IOException {
+        writeImage("IMG_0001.png", 10, 10);
+        writeImage("DSC_0001.png", 10, 10);
+
+        AutoClassifyResult result = classify(rule("Phone", r -> r.setFilenamePattern("IMG_*")));
+
+        assertThat(result.getClassifications()).containsOnlyKeys(path("IMG_0001.png"));
+    }
+
+    @Test
+    void takenAfterIsInclusiveAndTakenBeforeExclusive() throws IOException {
+        setModified(writeImage("before.png", 10, 10), LocalDateTime.of(2023, 12, 31, 23, 0));
+        setModified(writeImage("first-day.png", 10, 10), LocalDateTime.of(2024, 1, 1, 0, 30));
+        setModified(writeImage("last-day.png", 10, 10), LocalDateTime.of(2024, 1, 31, 23, 0));
+        setModified(writeImage("end.png", 10, 10), LocalDateTime.of(2024, 2, 1, 0, 30));
+
+        AutoClassifyResult result = classify(rule("January", r -> {
+            r.setTakenAfter("2024-01-01");
+            r.setTakenBefore("2024-02-01");
+        }));
+
+        assertThat(result.getClassifications()).containsOnlyKeys(path("first-day.png"), path("last-day.png"));
+    }
+
+    @Test
+    void widthAndHeightRangesAreInclusive() throws IOException {
+        writeImage("small.png", 100, 50);
+        writeImage("medium.png", 200, 150);
+        writeImage("large.png", 400, 300);
+
+        AutoClassifyResult result = classify(rule("Medium", r -> {
+            r.setMinWidth(100);
+            r.setMaxWidth(200);
+            r.setMinHeight(150);
+        }));
+
+        assertThat(result.getClassifications()).containsOnlyKeys(path("medium.png"));
+    }
+
+    @Test
+    void videoDateComesFromMp4Header() throws IOException {
+        LocalDateTime recorded = LocalDateTime.of(2019, 6, 15, 12, 0);
+        Path clip = Files.write(dir.resolve("clip.mp4"), mp4CreatedAt(recorded.toEpochSecond(ZoneOffset.UTC)));
+        setModified(clip, LocalDateTime.of(2024, 5, 1, 12, 0));
+
+        AutoClassifyResult result = classify(rule("2019", r -> {
+            r.setTakenAfter("2019-01-01");
+            r.setTakenBefore("2020-01-01");
+        }));
+
+        assertThat(result.getClassifications()).containsOnlyKeys(path("clip.mp4"));
+    }
+
+    @Test
+    void videoWithoutHeaderDateFallsBackToModificationTime() throws IOException {
+        setModified(Files.write(dir.resolve("clip.mkv"), new byte[] {0}), LocalDateTime.of(2021, 3, 1, 12, 0));
+
+        AutoClassifyResult result = classify(rule("2021", r -> r.setTakenAfter("2021-01-01")));
+
+        assertThat(result.getClassifications()).containsOnlyKeys(path("clip.mkv"));
+    }
+
+    @Test
+    void rejectsRuleForUnknownDestination() {
+        AutoClassifyRequest request = request(List.of(rule("Missing", r -> r.setType("image"))));
+        request.setDestinations(List.of());
+
+        assertThatThrownBy(() -> service.classify(request))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Destination folder not found: Missing");
+    }
+
+    @Test
+    void rejectsInvalidDate() {
+        assertThatThrownBy(() -> classify(rule("Bad", r -> r.setTakenAfter("01/02/2024"))))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Invalid rule for Bad");
+    }
+
+    private AutoClassifyResult classify(ClassificationRule... rules) throws IOException {
+        return service.classify(request(Arrays.asList(rules)));
+    }
+
+    private AutoClassifyRequest request(List<ClassificationRule> rules) {
+        AutoClassifyRequest request = new AutoClassifyRequest();
+        request.setSourcePath(dir.toString());
+        request.setDestinations(rules.stream()
+                .map(r -> new Destination(r.getDestination(), "k", dir.resolve("out").toString()))
+                .toList());
+        request.setRules(rules);
+        return request;
+    }
+
+    private ClassificationRule rule(String destination, java.util.function.Consumer<ClassificationRule> conditions) {
+        ClassificationRule rule = new ClassificationRule();
+        rule.setDestination(destination);
+        conditions.accept(rule);
+        return rule;
+    }
+
+    private Path writeImage(String name, int width, int height) throws IOException {
+        Path file = dir.resolve(name);
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", file.toFile());
+        return file;
+    }
+
+    private void setModified(Path file, LocalDateTime time) throws IOException {
+        Files.setLastModifiedTime(file, FileTime.from(time.atZone(ZoneId.systemDefault()).toInstant()));
+    }
+
+    private String path(String name) {
+        return dir.resolve(name).toAbsolutePath().toString();
+    }
+
+    /**
+     * Smallest MP4 the metadata reader accepts: a file type box and a
+     * movie header carrying the creation time.
+     */
+    private byte[] mp4CreatedAt(long epochSecond) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeInt(20);
+        out.writeBytes("ftyp");
+        out.writeBytes("isom");
+        out.writeInt(0x200);
+        out.writeBytes("isom");
+
+        out.writeInt(8 + 108);
+        out.writeBytes("moov");
+        out.writeInt(108);
+        out.writeBytes("mvhd");
+        out.writeInt(0); // version 0, no flags
+        out.writeInt((int) (epochSecond + MP4_EPOCH_OFFSET_SECONDS));
+        out.writeInt((int) (epochSecond + MP4_EPOCH_OFFSET_SECONDS));
+        out.writeInt(1000); // time scale
+        out.writeInt(5000); // duration
+        out.writeInt(0x00010000); // rate 1.0
+        out.writeShort(0x0100); // volume 1.0
+        out.write(new byte[10]);
+        int[] identity = {0x00010000, 0, 0, 0, 0x00010000, 0, 0, 0, 0x40000000};
+        for (int value : identity) {
+            out.writeInt(value);
+        }
+        out.write(new byte[24]);
+        out.writeInt(2); // next track id
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,113 @@
+package com.pablogb.multimediasorterapp.service;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConfigurationStoreTests {
+
+    private static final long WRITE_DELAY_MILLIS = 200;
+    private static final JavaType STRING_LIST =
+            TypeFactory.defaultInstance().constructCollectionType(List.class, String.class);
+
+    @TempDir
+    Path dir;
+
+    private ConfigurationStore store;
+
+    @BeforeEach
+    void setUp() {
+        // Check mtimes on every read so external edits are seen immediately
+        store = new ConfigurationStore(0, WRITE_DELAY_MILLIS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.flushAll();
+    }
+
+    @Test
+    void readReturnsDefaultWhenFileIsMissing() throws IOException {
+        List<String> value = store.read(dir.resolve("missing.json"), STRING_LIST, List::of);
+
+        assertThat(value).isEmpty();
+    }
+
+    @Test
+    void burstOfWritesIsCoalescedIntoLastValue() throws Exception {
+        Path file = dir.resolve("destinations.json");
+
+        store.write(file, List.of("first"));
+        store.write(file, List.of("second"));
+
+        // Served from memory before anything reaches the disk
+        assertThat(Files.exists(file)).isFalse();
+        assertThat(store.<List<String>>read(file, STRING_LIST, List::of)).containsExactly("second");
+
+        Thread.sleep(WRITE_DELAY_MILLIS * 3);
+        assertThat(Files.readString(file)).contains("second").doesNotContain("first");
+    }
+
+    @Test
+    void writeLeavesNoTempFileBehind() throws Exception {
+        Path file = dir.resolve("lists.json");
+
+        store.write(file, List.of("a"));
+        Thread.sleep(WRITE_DELAY_MILLIS * 3);
+
+        try (java.util.stream.Stream<Path> files = Files.list(dir)) {
+            assertThat(files).containsExactly(file);
+        }
+    }
+
+    @Test
+    void externalEditIsPickedUpByMtime() throws IOException {
+        Path file = dir.resolve("destinations.json");
+        Files.writeString(file, "[\"original\"]");
+        assertThat(store.<List<String>>read(file, STRING_LIST, List::of)).containsExactly("original");
+
+        Files.writeString(file, "[\"edited\"]");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+
+        assertThat(store.<List<String>>read(file, STRING_LIST, List::of)).containsExactly("edited");
+    }
+
+    @Test
+    void failedWriteIsReportedOnNextWrite() throws Exception {
+        // A regular file where the parent directory should be makes every write fail
+        Path blocker = Files.writeString(dir.resolve("blocker"), "");
+        Path file = blocker.resolve("destinations.json");
+
+        store.write(file, List.of("a"));
+        Thread.sleep(WRITE_DELAY_MILLIS * 3);
+
+        assertThatThrownBy(() -> store.write(file, List.of("b"))).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void writeSucceedsAgainOnceProblemIsFixed() throws Exception {
+        Path parent = dir.resolve("config");
+        Files.writeString(parent, "");
+        Path file = parent.resolve("destinations.json");
+
+        store.write(file, List.of("a"));
+        Thread.sleep(WRITE_DELAY_MILLIS * 3);
+        Files.delete(parent);
+
+        store.write(file, List.of("b"));
+
+        assertThat(Files.readString(file)).contains("b");
+    }
+}
@@ -0,0 +1,103 @@
+package com.pablogb.multimediasorterapp.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileHasherTests {
+
+    @TempDir
+    Path dir;
+
+    private FileHasher crcHasher;
+    private FileHasher shaHasher;
+
+    @BeforeEach
+    void setUp() {
+        SortPlanService sortPlanService = new SortPlanService(new ConfigurationStore(), dir.resolve("throughput.json"));
+        IoThrottle ioThrottle = new IoThrottle(0, 0, false, 250, sortPlanService);
+        crcHasher = new FileHasher(HashAlgorithm.CRC32C, ioThrottle);
+        shaHasher = new FileHasher(HashAlgorithm.SHA256, ioThrottle);
+    }
+
+    @Test
+    void hashIsTaggedWithAlgorithm() throws IOException {
+        Path file = write("a.jpg", "hello".getBytes());
+
+        assertThat(crcHasher.hash(file)).matches("crc32c:[0-9a-f]{8}");
+        assertThat(shaHasher.hash(file))
+                .isEqualTo("sha256:2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824");
+    }
+
+    @Test
+    void copyAndHashCopiesContentAndHashesSource() throws IOException {
+        byte[] content = randomBytes(1024 * 1024 + 17); // spans several buffers
+        Path source = write("source.jpg", content);
+        Path destination = dir.resolve("destination.jpg");
+
+        String hash = crcHasher.copyAndHash(source, destination);
+
+        assertThat(Files.readAllBytes(destination)).isEqualTo(content);
+        assertThat(hash).isEqualTo(crcHasher.hash(source));
+        assertThat(crcHasher.matches(hash, destination)).isTrue();
+    }
+
+    @Test
+    void matchesDetectsCorruptedCopy() throws IOException {
+        byte[] content = randomBytes(4096);
+        Path source = write("source.jpg", content);
+        content[2000] ^= 1;
+        Path corrupted = write("corrupted.jpg", content);
+
+        assertThat(crcHasher.matches(crcHasher.hash(source), corrupted)).isFalse();
+    }
+
+    @Test
+    void matchesUsesAlgorithmOfStoredHash() throws IOException {
+        Path file = write("a.jpg", randomBytes(100));
+        String shaHash = shaHasher.hash(file);
+
+        // A hasher configured for CRC32C still verifies a SHA-256 tagged hash correctly
+        assertThat(crcHasher.matches(shaHash, file)).isTrue();
+    }
+
+    @Test
+    void matchesRejectsUntaggedHash() throws IOException {
+        Path file = write("a.jpg", randomBytes(100));
+
+        assertThatThrownBy(() -> crcHasher.matches("deadbeef", file))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void isDuplicateComparesContentNotJustName() throws IOException {
+        byte[] content = randomBytes(2048);
+        Path first = write("first.jpg", content);
+        Path same = write("same.jpg", content);
+        Path otherSize = write("other-size.jpg", randomBytes(2049));
+        content[0] ^= 1;
+        Path otherContent = write("other-content.jpg", content);
+
+        assertThat(crcHasher.isDuplicate(first, same)).isTrue();
+        assertThat(crcHasher.isDuplicate(first, otherSize)).isFalse();
+        assertThat(crcHasher.isDuplicate(first, otherContent)).isFalse();
+    }
+
+    private Path write(String name, byte[] content) throws IOException {
+        return Files.write(dir.resolve(name), content);
+    }
+
+    private byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+}
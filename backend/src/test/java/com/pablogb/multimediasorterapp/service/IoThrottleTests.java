@@ -0,0 +1,146 @@
+package com.pablogb.multimediasorterapp.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class IoThrottleTests {
+
+    @TempDir
+    Path dir;
+
+    private final ManualClock clock = new ManualClock();
+
+    @Test
+    void unlimitedBudgetDoesNotWait() throws IOException {
+        IoThrottle.Budget budget = throttle(0, 0, false).forFile(dir.resolve("a.jpg"));
+
+        long elapsed = timeMillis(() -> {
+            for (int i = 0; i < 100; i++) {
+                budget.acquire(1024 * 1024);
+            }
+        });
+
+        assertThat(elapsed).isLessThan(200);
+    }
+
+    @Test
+    void byteLimitPacesBulkIo() throws IOException {
+        IoThrottle.Budget budget = throttle(1_000_000, 0, false).forFile(dir.resolve("a.jpg"));
+
+        long elapsed = timeMillis(() -> {
+            budget.acquire(250_000);
+            budget.acquire(250_000);
+        });
+
+        assertThat(elapsed).isBetween(400L, 2000L);
+    }
+
+    @Test
+    void opLimitPacesBulkIo() throws IOException {
+        IoThrottle.Budget budget = throttle(0, 20, false).forFile(dir.resolve("a.jpg"));
+
+        long elapsed = timeMillis(() -> {
+            for (int i = 0; i < 5; i++) {
+                budget.acquire(1);
+            }
+        });
+
+        assertThat(elapsed).isBetween(200L, 2000L);
+    }
+
+    @Test
+    void yieldToActivePreviewIsBounded() throws IOException {
+        IoThrottle ioThrottle = throttle(0, 0, true);
+        IoThrottle.Budget budget = ioThrottle.forFile(dir.resolve("a.jpg"));
+
+        ioThrottle.previewStarted();
+        long waiting = timeMillis(() -> budget.acquire(1));
+        ioThrottle.previewFinished(null);
+        long idle = timeMillis(() -> budget.acquire(1));
+
+        assertThat(waiting).isBetween(150L, 1000L);
+        assertThat(idle).isLessThan(100);
+    }
+
+    @Test
+    void slowPreviewsHalveBackoffAndFastOnesRecover() {
+        IoThrottle ioThrottle = throttle(0, 0, false);
+
+        ioThrottle.previewStarted();
+        ioThrottle.previewFinished(1000L);
+        assertThat(ioThrottle.getSettings().getBackoffFactor()).isCloseTo(0.5, within(1e-9));
+
+        // Smoothed latency stays over target until enough fast samples come in
+        for (int i = 0; i < 10; i++) {
+            ioThrottle.previewStarted();
+            ioThrottle.previewFinished(10L);
+        }
+        assertThat(ioThrottle.getSettings().getBackoffFactor()).isGreaterThan(0.05).isLessThan(1.0);
+    }
+
+    @Test
+    void backoffRecoversWithoutNewSamples() {
+        IoThrottle ioThrottle = throttle(0, 0, false);
+        ioThrottle.previewStarted();
+        ioThrottle.previewFinished(1000L);
+
+        clock.advance(3500);
+        assertThat(ioThrottle.getSettings().getBackoffFactor()).isCloseTo(0.65, within(1e-9));
+
+        clock.advance(60_000);
+        assertThat(ioThrottle.getSettings().getBackoffFactor()).isEqualTo(1.0);
+    }
+
+    private IoThrottle throttle(long bytesPerSecond, int opsPerSecond, boolean yieldToPreviews) {
+        SortPlanService sortPlanService = new SortPlanService(new ConfigurationStore(), dir.resolve("throughput.json"));
+        return new IoThrottle(bytesPerSecond, opsPerSecond, yieldToPreviews, 250, sortPlanService, clock);
+    }
+
+    private long timeMillis(IoAction action) throws IOException {
+        long start = System.nanoTime();
+        action.run();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private interface IoAction {
+        void run() throws IOException;
+    }
+
+    private static class ManualClock extends Clock {
+        private long millis;
+
+        void advance(long deltaMillis) {
+            millis += deltaMillis;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.pablogb.multimediasorterapp.service;
+
+import com.pablogb.multimediasorterapp.model.Destination;
+import com.pablogb.multimediasorterapp.model.SortErrorPage;
+import com.pablogb.multimediasorterapp.model.SortFileResult;
+import com.pablogb.multimediasorterapp.model.SortRequest;
+import com.pablogb.multimediasorterapp.model.SortResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SortJobServiceTests {
+
+    @TempDir
+    Path dir;
+
+    private Path jobsDir;
+    private SortJobService service;
+
+    @BeforeEach
+    void setUp() {
+        jobsDir = dir.resolve("sort-jobs");
+        service = newService(24 * 60 * 60 * 1000L);
+    }
+
+    @Test
+    void reportsResultForEveryFile() throws IOException {
+        SortResult job = service.createJob(request(Collections.emptyMap()));
+
+        SortResult result = service.processBatch(job.getJobId(), classifications("a.jpg", "bad-b.jpg", "dup-c.jpg"));
+
+        assertThat(result.getResults()).extracting(SortFileResult::getStatus)
+                .containsExactly(SortFileResult.COPIED, SortFileResult.FAILED, SortFileResult.SKIPPED);
+        assertThat(result.getCopied()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getSkipped()).isEqualTo(1);
+        assertThat(result.isSuccess()).isFalse();
+    }
+
+    @Test
+    void countersAccumulateAcrossBatches() throws IOException {
+        SortResult job = service.createJob(request(classifications("a.jpg")));
+
+        service.processBatch(job.getJobId(), classifications("b.jpg", "bad-c.jpg"));
+        SortResult status = service.getStatus(job.getJobId());
+
+        assertThat(status.getCopied()).isEqualTo(2);
+        assertThat(status.getFailed()).isEqualTo(1);
+        assertThat(status.getResults()).isNull();
+    }
+
+    @Test
+    void pagesThroughErrors() throws IOException {
+        SortResult job = service.createJob(request(Collections.emptyMap()));
+        service.processBatch(job.getJobId(), classifications("bad-0.jpg", "bad-1.jpg", "ok.jpg"));
+        service.processBatch(job.getJobId(), classifications("bad-2.jpg", "bad-3.jpg", "bad-4.jpg"));
+
+        SortErrorPage page = service.getErrors(job.getJobId(), 1, 3);
+
+        assertThat(page.getTotal()).isEqualTo(5);
+        assertThat(page.getOffset()).isEqualTo(1);
+        assertThat(page.getErrors()).extracting(SortFileResult::getPath)
+                .containsExactly(path("bad-1.jpg"), path("bad-2.jpg"), path("bad-3.jpg"));
+        assertThat(service.getErrors(job.getJobId(), 4, 10).getErrors()).hasSize(1);
+        assertThat(service.getErrors(job.getJobId(), 10, 10).getErrors()).isEmpty();
+    }
+
+    @Test
+    void errorPageIsEmptyWhenNothingFailed() throws IOException {
+        SortResult job = service.createJob(request(classifications("a.jpg")));
+
+        SortErrorPage page = service.getErrors(job.getJobId(), 0, 10);
+
+        assertThat(page.getTotal()).isZero();
+        assertThat(page.getErrors()).isEmpty();
+    }
+
+    @Test
+    void deletingJobRemovesItAndItsErrorFile() throws IOException {
+        SortResult job = service.createJob(request(classifications("bad-a.jpg")));
+        assertThat(errorFiles()).hasSize(1);
+
+        service.deleteJob(job.getJobId());
+
+        assertThat(errorFiles()).isEmpty();
+        assertThatThrownBy(() -> service.getStatus(job.getJobId()))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("not found");
+    }
+
+    @Test
+    void expiredJobsAreRemoved() throws Exception {
+        service = newService(0);
+        SortResult job = service.createJob(request(classifications("bad-a.jpg")));
+        Thread.sleep(5);
+
+        service.removeExpiredJobs();
+
+        assertThatThrownBy(() -> service.getStatus(job.getJobId())).isInstanceOf(IOException.class);
+        assertThat(errorFiles()).isEmpty();
+    }
+
+    @Test
+    void startupRemovesErrorFilesFromPreviousRun() throws IOException {
+        Files.createDirectories(jobsDir);
+        Path orphan = Files.writeString(jobsDir.resolve("old-errors.jsonl"), "{}\n");
+
+        SortJobService restarted = newService(0);
+        restarted.start();
+        restarted.stop();
+
+        assertThat(orphan).doesNotExist();
+    }
+
+    private SortJobService newService(long expiryMillis) {
+        SortPlanService sortPlanService = new SortPlanService(new ConfigurationStore(), dir.resolve("throughput.json"));
+        return new SortJobService(new FakeSorterService(), sortPlanService, jobsDir, expiryMillis);
+    }
+
+    private SortRequest request(Map<String, String> classifications) {
+        SortRequest request = new SortRequest();
+        request.setDestinations(Collections.singletonList(
+                new Destination("Keep", "k", dir.resolve("sorted").toString())));
+        request.setClassifications(classifications);
+        return request;
+    }
+
+    private Map<String, String> classifications(String... names) throws IOException {
+        Map<String, String> classifications = new LinkedHashMap<>();
+        for (String name : names) {
+            Files.write(dir.resolve(name), new byte[] {1});
+            classifications.put(path(name), "Keep");
+        }
+        return classifications;
+    }
+
+    private String path(String name) {
+        return dir.resolve(name).toString();
+    }
+
+    private java.util.List<Path> errorFiles() throws IOException {
+        if (!Files.isDirectory(jobsDir)) {
+            return Collections.emptyList();
+        }
+        try (java.util.stream.Stream<Path> files = Files.list(jobsDir)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Decides each file's outcome from its name instead of copying it.
+     */
+    private static class FakeSorterService extends MultimediaSorterService {
+        @Override
+        public SortFileResult sortFile(String sourcePath, String destFolder, Map<String, String> destinationPaths) {
+            String name = Path.of(sourcePath).getFileName().toString();
+            if (name.startsWith("bad-")) {
+                return SortFileResult.failed(sourcePath, "Error processing " + sourcePath);
+            }
+            if (name.startsWith("dup-")) {
+                return SortFileResult.skipped(sourcePath, destinationPaths.get(destFolder));
+            }
+            return SortFileResult.copied(sourcePath, destinationPaths.get(destFolder));
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.pablogb.multimediasorterapp.service;
+
+import com.pablogb.multimediasorterapp.model.Destination;
+import com.pablogb.multimediasorterapp.model.DestinationSpace;
+import com.pablogb.multimediasorterapp.model.SortPlan;
+import com.pablogb.multimediasorterapp.model.SortRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class SortPlanServiceTests {
+
+    @TempDir
+    Path dir;
+
+    private SortPlanService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new SortPlanService(new ConfigurationStore(), dir.resolve("throughput.json"));
+    }
+
+    @Test
+    void sameDeviceMoveOnlyNeedsRoomForLargestFile() throws IOException {
+        Map<String, String> classifications = new LinkedHashMap<>();
+        classifications.put(write(dir, "a.jpg", 1000).toString(), "Keep");
+        classifications.put(write(dir, "b.jpg", 3000).toString(), "Keep");
+        classifications.put(write(dir, "c.jpg", 2000).toString(), "Keep");
+
+        SortPlan plan = service.plan(request(dir.resolve("sorted"), classifications)).getPlan();
+
+        assertThat(plan.getFileCount()).isEqualTo(3);
+        assertThat(plan.getTotalBytes()).isEqualTo(6000);
+        assertThat(plan.getDestinations()).hasSize(1);
+        assertThat(plan.getDestinations().get(0).getRequiredBytes()).isEqualTo(3000);
+        assertThat(plan.isFeasible()).isTrue();
+    }
+
+    @Test
+    void crossDeviceCopyNeedsRoomForEveryFile() throws IOException {
+        Path shm = Paths.get("/dev/shm");
+        assumeTrue(Files.isDirectory(shm) && Files.isWritable(shm)
+                && !Files.getFileStore(shm).equals(Files.getFileStore(dir)), "needs a second device");
+
+        Path source = Files.createTempDirectory(shm, "sort-plan");
+        try {
+            Map<String, String> classifications = new LinkedHashMap<>();
+            classifications.put(write(source, "a.jpg", 1000).toString(), "Keep");
+            classifications.put(write(source, "b.jpg", 3000).toString(), "Keep");
+
+            SortPlan plan = service.plan(request(dir.resolve("sorted"), classifications)).getPlan();
+
+            assertThat(plan.getDestinations().get(0).getRequiredBytes()).isEqualTo(4000);
+            assertThat(plan.getGroups()).hasSize(1);
+            assertThat(plan.getGroups().get(0).getBytes()).isEqualTo(4000);
+        } finally {
+            try (java.util.stream.Stream<Path> files = Files.list(source)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(source);
+        }
+    }
+
+    @Test
+    void ordersBySourcePathAndPutsUnplannedEntriesLast() throws IOException {
+        Map<String, String> classifications = new LinkedHashMap<>();
+        classifications.put(dir.resolve("missing.jpg").toString(), "Keep");
+        classifications.put(write(dir, "z.jpg", 10).toString(), "Keep");
+        classifications.put(write(dir, "m.jpg", 10).toString(), "Nowhere");
+        classifications.put(write(dir, "a.jpg", 10).toString(), "Keep");
+
+        SortPlanService.PlannedSort planned = service.plan(request(dir.resolve("sorted"), classifications));
+
+        assertThat(planned.getOrderedClassifications().keySet()).containsExactly(
+                dir.resolve("a.jpg").toString(),
+                dir.resolve("z.jpg").toString(),
+                dir.resolve("missing.jpg").toString(),
+                dir.resolve("m.jpg").toString());
+        assertThat(planned.getPlan().getFileCount()).isEqualTo(2);
+        assertThat(planned.getPlan().getProblems()).containsExactly(
+                "Source not readable: " + dir.resolve("missing.jpg"),
+                "Destination folder not found: Nowhere");
+    }
+
+    @Test
+    void totalsAccumulateAcrossBatches() throws IOException {
+        SortPlanService.PlanTotals totals = new SortPlanService.PlanTotals();
+        Path dest = dir.resolve("sorted");
+
+        service.addToTotals(totals, request(dest,
+                Collections.singletonMap(write(dir, "a.jpg", 1000).toString(), "Keep")));
+        service.addToTotals(totals, request(dest,
+                Collections.singletonMap(write(dir, "b.jpg", 5000).toString(), "Keep")));
+
+        SortPlan plan = service.summarize(totals);
+        assertThat(plan.getFileCount()).isEqualTo(2);
+        assertThat(plan.getTotalBytes()).isEqualTo(6000);
+        assertThat(plan.getDestinations().get(0).getRequiredBytes()).isEqualTo(5000);
+    }
+
+    @Test
+    void throughputSurvivesRestart() throws IOException {
+        Map<String, String> classifications = Collections.singletonMap(write(dir, "a.jpg", 1000).toString(), "Keep");
+        SortRequest request = request(dir.resolve("sorted"), classifications);
+        assertThat(service.plan(request).getPlan().getEstimatedSeconds()).isNull();
+
+        ConfigurationStore store = new ConfigurationStore(0, 0);
+        SortPlanService measured = new SortPlanService(store, dir.resolve("throughput.json"));
+        measured.recordCopy(dir.resolve("a.jpg"), dir.resolve("sorted"), 10_000_000, 1_000_000_000);
+        store.flushAll();
+
+        SortPlanService restarted = new SortPlanService(new ConfigurationStore(), dir.resolve("throughput.json"));
+        assertThat(restarted.plan(request).getPlan().getEstimatedSeconds()).isCloseTo(0.0001, within(1e-9));
+    }
+
+    @Test
+    void checkSpaceRejectsPlanThatDoesNotFit() {
+        SortPlan plan = new SortPlan();
+        plan.setDestinations(Collections.singletonList(
+                new DestinationSpace("/mnt/photos", 300L * 1024 * 1024, 100L * 1024 * 1024)));
+
+        assertThatThrownBy(() -> service.checkSpace(plan))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Not enough space on /mnt/photos: 300 MB needed, 100 MB available");
+    }
+
+    private SortRequest request(Path dest, Map<String, String> classifications) {
+        SortRequest request = new SortRequest();
+        request.setDestinations(Collections.singletonList(new Destination("Keep", "k", dest.toString())));
+        request.setClassifications(classifications);
+        return request;
+    }
+
+    private Path write(Path parent, String name, int size) throws IOException {
+        return Files.write(parent.resolve(name), new byte[size]);
+    }
+}
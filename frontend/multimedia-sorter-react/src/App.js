@@ -11,9 +11,17 @@ import {
 } from "lucide-react";
 
 const API_BASE = "http://localhost:8080/api";
+const SORT_BATCH_SIZE = 500;
+const VIDEO_STRIP_FRAMES = 10;
+// Formats the server converts to an MP4 proxy, see /api/media?rendition=true
+const RENDITION_VIDEO_EXTENSIONS = [".mkv", ".avi", ".wmv", ".flv"];
+const RENDITION_POLL_MILLIS = 5000;
 
 export default function MultimediaSorter() {
   const [sourcePath, setSourcePath] = useState("");
+  const [browsePath, setBrowsePath] = useState(null);
+  const [browseFolders, setBrowseFolders] = useState([]);
+  const [folderCounts, setFolderCounts] = useState({});
   const [images, setImages] = useState([]);
   const [currentIndex, setCurrentIndex] = useState(0);
   const [destinations, setDestinations] = useState([]);
@@ -35,9 +43,10 @@ export default function MultimediaSorter() {
   const [isMouseOverImage, setIsMouseOverImage] = useState(false);
   const [buttonSize, setButtonSize] = useState("medium");
   const [imageMetadata, setImageMetadata] = useState({});
-  const [isVideoPlaying, setIsVideoPlaying] = useState(true);
+  const [isVideoPlaying, setIsVideoPlaying] = useState(false);
   const [isVideoMuted, setIsVideoMuted] = useState(true);
   const [videoRef, setVideoRef] = useState(null);
+  const [renditionPath, setRenditionPath] = useState(null);
   const [playbackSpeed, setPlaybackSpeed] = useState(() => {
     const saved = localStorage.getItem("videoPlaybackSpeed");
     return saved ? parseFloat(saved) : 1;
@@ -63,6 +72,54 @@ export default function MultimediaSorter() {
     loadDestinationLists();
   }, []);
 
+  // Folder browser: list subfolders, then fill in media counts as the server pushes them
+  useEffect(() => {
+    if (browsePath === null) return;
+    let cancelled = false;
+    setBrowseFolders([]);
+    setFolderCounts({});
+
+    fetch(`${API_BASE}/folders?path=${encodeURIComponent(browsePath)}`)
+      .then((response) => (response.ok ? response.json() : []))
+      .then((folders) => {
+        if (!cancelled) setBrowseFolders(folders);
+      })
+      .catch(() => showFeedback("Could not list folders"));
+
+    const counts = new EventSource(
+      `${API_BASE}/folder-counts?path=${encodeURIComponent(browsePath)}`
+    );
+    counts.onmessage = (e) => {
+      const { path, mediaCount } = JSON.parse(e.data);
+      setFolderCounts((prev) => ({ ...prev, [path]: mediaCount }));
+    };
+    // The server closes the stream once every count is sent; don't let it reconnect
+    counts.onerror = () => counts.close();
+
+    return () => {
+      cancelled = true;
+      counts.close();
+    };
+  }, [browsePath]);
+
+  const parentFolder = (path) => {
+    const trimmed = path.replace(/[\\/]+$/, "");
+    const index = Math.max(
+      trimmed.lastIndexOf("/"),
+      trimmed.lastIndexOf("\\")
+    );
+    if (index < 0) return trimmed || "/";
+    return trimmed.slice(0, index + 1);
+  };
+
+  const folderName = (path) =>
+    path.split(/[\\/]/).filter(Boolean).pop() || path;
+
+  const openFolder = (path) => {
+    setSourcePath(path);
+    setBrowsePath(path);
+  };
+
   const loadDestinationLists = async () => {
     try {
       const response = await fetch(`${API_BASE}/destination-lists`);
@@ -360,7 +417,7 @@ export default function MultimediaSorter() {
     setZoom(1);
     setImagePosition({ x: 0, y: 0 });
     setVideoProgress(0);
-    setIsVideoPlaying(true);
+    setIsVideoPlaying(false);
   };
 
   const skipImage = () => {
@@ -370,7 +427,7 @@ export default function MultimediaSorter() {
       setZoom(1);
       setImagePosition({ x: 0, y: 0 });
       setVideoProgress(0);
-      setIsVideoPlaying(true);
+      setIsVideoPlaying(false);
     }
   };
 
@@ -380,7 +437,7 @@ export default function MultimediaSorter() {
       setZoom(1);
       setImagePosition({ x: 0, y: 0 });
       setVideoProgress(0);
-      setIsVideoPlaying(true);
+      setIsVideoPlaying(false);
     }
   };
 
@@ -394,7 +451,7 @@ export default function MultimediaSorter() {
     setZoom(1);
     setImagePosition({ x: 0, y: 0 });
     setHasUnsavedChanges(false);
-    setIsVideoPlaying(true);
+    setIsVideoPlaying(false);
     setIsVideoMuted(true);
     showFeedback("Ready for new session");
   };
@@ -409,7 +466,7 @@ export default function MultimediaSorter() {
         `- ${
           Object.keys(classifications).length
         } images will be copied, verified, and deleted from source\n` +
-        `- This operation uses SHA-256 hash verification\n` +
+        `- This operation uses hash verification\n` +
         `- Duplicates will be detected and skipped\n\n` +
         `Continue?`
     );
@@ -423,12 +480,84 @@ export default function MultimediaSorter() {
 
     setProcessing(true);
     try {
-      const response = await fetch(`${API_BASE}/sort`, {
+      const jobResponse = await fetch(`${API_BASE}/sort/jobs`, {
         method: "POST",
         headers: { "Content-Type": "application/json" },
-        body: JSON.stringify({ sourcePath, destinations, classifications }),
+        body: JSON.stringify({ sourcePath, destinations }),
       });
-      const result = await response.json();
+      let result = await jobResponse.json();
+      if (!jobResponse.ok) {
+        alert(`Could not start sorting:\n\n${result.message}`);
+        return;
+      }
+      const jobId = result.jobId;
+
+      // Send classifications in batches so huge sorts don't need one giant request
+      const entries = Object.entries(classifications);
+      const batches = [];
+      for (let i = 0; i < entries.length; i += SORT_BATCH_SIZE) {
+        batches.push(Object.fromEntries(entries.slice(i, i + SORT_BATCH_SIZE)));
+      }
+
+      // Plan the whole job before anything is copied so it can't run out of space halfway
+      let plan = null;
+      for (const batch of batches) {
+        const response = await fetch(`${API_BASE}/sort/jobs/${jobId}/plan`, {
+          method: "POST",
+          headers: { "Content-Type": "application/json" },
+          body: JSON.stringify(batch),
+        });
+        plan = response.ok ? await response.json() : null;
+        if (!plan) break;
+      }
+      if (!plan || !plan.feasible) {
+        await fetch(`${API_BASE}/sort/jobs/${jobId}`, { method: "DELETE" });
+        const shortfalls = (plan ? plan.destinations : [])
+          .filter((d) => !d.fits)
+          .map(
+            (d) =>
+              `${d.fileStore}: ${Math.round(d.requiredBytes / 1048576)} MB needed, ` +
+              `${Math.round(d.usableBytes / 1048576)} MB available`
+          );
+        alert(
+          plan
+            ? `Not enough space, nothing was moved:\n\n${shortfalls.join("\n")}`
+            : "Could not plan the sort, nothing was moved"
+        );
+        return;
+      }
+
+      for (const batch of batches) {
+        const response = await fetch(`${API_BASE}/sort/jobs/${jobId}/batches`, {
+          method: "POST",
+          headers: { "Content-Type": "application/json" },
+          body: JSON.stringify(batch),
+        });
+        result = await response.json();
+        if (!response.ok) {
+          // Stop at the first batch the server refuses and report what was done before it
+          const stopped = result.message;
+          const statusResponse = await fetch(`${API_BASE}/sort/jobs/${jobId}`);
+          result = await statusResponse.json();
+          result.success = false;
+          result.message = `Stopped: ${stopped}\n${result.message}`;
+          break;
+        }
+      }
+
+      if (!result.success) {
+        const errorsResponse = await fetch(
+          `${API_BASE}/sort/jobs/${jobId}/errors?offset=0&limit=20`
+        );
+        const page = await errorsResponse.json();
+        const errorLines = page.errors.map((e) => e.error);
+        if (page.total > errorLines.length) {
+          errorLines.push(`... and ${page.total - errorLines.length} more`);
+        }
+        result.message += `\nErrors:\n${errorLines.join("\n")}`;
+      }
+      await fetch(`${API_BASE}/sort/jobs/${jobId}`, { method: "DELETE" });
+
       if (result.success) {
         // Delete the session file since we're done
         try {
@@ -533,6 +662,30 @@ export default function MultimediaSorter() {
     }
   }, [currentImage, isStarted]);
 
+  // Heavy videos play from the original until the server has an MP4 proxy.
+  // The proxy has its own URL, and is only switched to while paused.
+  useEffect(() => {
+    if (!currentImage || isVideoPlaying || renditionPath === currentImage.path) return;
+    const name = currentImage.name.toLowerCase();
+    if (!RENDITION_VIDEO_EXTENSIONS.some((ext) => name.endsWith(ext))) return;
+
+    const path = currentImage.path;
+    const timer = setInterval(async () => {
+      try {
+        const response = await fetch(
+          `${API_BASE}/media?path=${encodeURIComponent(path)}`,
+          { method: "HEAD" }
+        );
+        if (response.headers.get("X-Preview-Rendition") === "available") {
+          setRenditionPath(path);
+        }
+      } catch (e) {
+        // Keep playing the original
+      }
+    }, RENDITION_POLL_MILLIS);
+    return () => clearInterval(timer);
+  }, [currentImage, isVideoPlaying, renditionPath]);
+
   const getButtonSizeClasses = () => {
     switch (buttonSize) {
       case "small":
@@ -635,6 +788,15 @@ export default function MultimediaSorter() {
     }
   };
 
+  const seekToStripFrame = (e) => {
+    const duration = videoDuration || currentMetadata?.duration;
+    if (!videoRef || !duration) return;
+    const rect = e.currentTarget.getBoundingClientRect();
+    const fraction = (e.clientX - rect.left) / rect.width;
+    videoRef.currentTime = fraction * duration;
+    setVideoProgress(fraction * duration);
+  };
+
   const handleProgressBarMouseDown = () => {
     setIsVideoSeeking(true);
   };
@@ -752,6 +914,14 @@ export default function MultimediaSorter() {
                   className="flex-1 p-3 bg-slate-700 rounded border border-slate-600 text-white"
                   onKeyPress={(e) => e.key === "Enter" && loadImages()}
                 />
+                <button
+                  onClick={() =>
+                    setBrowsePath(browsePath === null ? sourcePath || "/" : null)
+                  }
+                  className="px-4 py-3 bg-slate-600 hover:bg-slate-500 rounded font-semibold transition"
+                >
+                  Browse
+                </button>
                 <button
                   onClick={loadImages}
                   disabled={loading}
@@ -764,6 +934,30 @@ export default function MultimediaSorter() {
                   )}
                 </button>
               </div>
+              {browsePath !== null && (
+                <div className="mt-3 max-h-64 overflow-y-auto bg-slate-900 rounded border border-slate-700">
+                  <button
+                    onClick={() => openFolder(parentFolder(browsePath))}
+                    className="w-full text-left px-3 py-2 hover:bg-slate-700 text-slate-400"
+                  >
+                    ..
+                  </button>
+                  {browseFolders.map((folder) => (
+                    <button
+                      key={folder}
+                      onClick={() => openFolder(folder)}
+                      className="w-full flex justify-between px-3 py-2 hover:bg-slate-700"
+                    >
+                      <span>{folderName(folder)}</span>
+                      <span className="text-sm text-slate-400">
+                        {folderCounts[folder] === undefined
+                          ? "…"
+                          : `${folderCounts[folder]} media`}
+                      </span>
+                    </button>
+                  ))}
+                </div>
+              )}
               {images.length > 0 && (
                 <p className="mt-2 text-green-400 flex items-center gap-2">
                   <CheckCircle size={16} />
@@ -1000,9 +1194,16 @@ export default function MultimediaSorter() {
                         ref={setVideoRef}
                         src={`${API_BASE}/media?path=${encodeURIComponent(
                           currentImage.path
+                        )}${
+                          renditionPath === currentImage.path
+                            ? "&rendition=true"
+                            : ""
+                        }`}
+                        poster={`${API_BASE}/video-poster?path=${encodeURIComponent(
+                          currentImage.path
                         )}`}
                         className="max-h-96 rounded object-contain select-none"
-                        autoPlay
+                        preload="none"
                         loop
                         muted={isVideoMuted}
                         style={{ maxWidth: "100%" }}
@@ -1018,6 +1219,16 @@ export default function MultimediaSorter() {
                       )}
                     </div>
 
+                    {/* Scrub strip: jump to a point without downloading the whole video */}
+                    <img
+                      src={`${API_BASE}/video-strip?path=${encodeURIComponent(
+                        currentImage.path
+                      )}&frames=${VIDEO_STRIP_FRAMES}`}
+                      alt="Video frames"
+                      className="w-full rounded cursor-pointer select-none"
+                      onClick={seekToStripFrame}
+                    />
+
                     {/* Video Controls */}
                     <div className="bg-slate-900 p-3 rounded space-y-3">
                       {/* Progress Bar */}